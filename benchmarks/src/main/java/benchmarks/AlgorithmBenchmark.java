@@ -0,0 +1,67 @@
+package benchmarks;
+
+import algorithms.Algorithm;
+import algorithms.Strategy;
+import game.Contract;
+import hand.Card;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks Algorithm.getOptimalBases over hands of different sizes, shoes and contracts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlgorithmBenchmark {
+    @Param({"11", "20", "30"})
+    public int handSize;
+
+    @Param({"1", "2", "4", "8"})
+    public int numDecks;
+
+    @Param({"TWO_BOOKS", "ONE_BOOK_ONE_RUN", "TWO_BOOKS_ONE_RUN", "THREE_RUNS"})
+    public Contract contract;
+
+    private HandCorpus corpus;
+    private int index;
+
+    @Setup
+    public void setup() {
+        this.corpus = new HandCorpus(this.handSize, this.numDecks);
+    }
+
+    @Benchmark
+    public Map<String, List<List<Card>>> greedyList() {
+        return Algorithm.getOptimalBases(this.corpus.get(this.index++),
+                this.contract.getNumBooks(), this.contract.getNumRuns());
+    }
+
+    @Benchmark
+    public Map<String, List<List<Card>>> greedyPacked() {
+        return Algorithm.getOptimalBases(this.corpus.getPacked(this.index++),
+                this.contract.getNumBooks(), this.contract.getNumRuns());
+    }
+
+    @Benchmark
+    public Map<String, List<List<Card>>> exactPacked() {
+        return Algorithm.getOptimalBases(this.corpus.getPacked(this.index++),
+                this.contract.getNumBooks(), this.contract.getNumRuns(), Strategy.EXACT);
+    }
+}
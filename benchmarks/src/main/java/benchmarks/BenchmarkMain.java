@@ -0,0 +1,28 @@
+package benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs JMH with the usual command line options, adding the gc profiler (unless already
+ * requested) so that the allocation rate of each benchmark is always reported.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        boolean hasGcProfiler = false;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("-prof") && args[i + 1].startsWith("gc")) {
+                hasGcProfiler = true;
+            }
+        }
+        if (!hasGcProfiler) {
+            options.add(0, "-prof");
+            options.add(1, "gc");
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,117 @@
+package benchmarks;
+
+import hand.Card;
+import hand.CardParser;
+import hand.Deck;
+import hand.PackedHand;
+import hand.Shoe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.BadEncodingException;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing cards and whole hands from their text and binary encodings, and dealing
+ * random hands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardBenchmark {
+    @Param({"11", "20", "30"})
+    public int handSize;
+
+    @Param({"1", "2", "4", "8"})
+    public int numDecks;
+
+    private String[] encodings;
+    private String[][] handEncodings;
+    private String[] handLines;
+    private final CardParser parser = new CardParser();
+    private ByteBuffer binaryHands;
+    private final PackedHand hand = new PackedHand();
+    private Shoe shoe;
+    private int index;
+
+    @Setup
+    public void setup() {
+        HandCorpus corpus = new HandCorpus(this.handSize, this.numDecks);
+        this.encodings = new String[HandCorpus.SIZE];
+        for (int i = 0; i < HandCorpus.SIZE; i++) {
+            this.encodings[i] = corpus.get(i).get(0).encode();
+        }
+        this.handEncodings = new String[HandCorpus.SIZE][];
+        this.handLines = new String[HandCorpus.SIZE];
+        this.binaryHands = ByteBuffer.allocate(HandCorpus.SIZE * PackedHand.ENCODED_SIZE);
+        for (int i = 0; i < HandCorpus.SIZE; i++) {
+            List<Card> cards = corpus.get(i);
+            this.handEncodings[i] = new String[cards.size()];
+            for (int j = 0; j < cards.size(); j++) {
+                this.handEncodings[i][j] = cards.get(j).encode();
+            }
+            this.handLines[i] = String.join(" ", this.handEncodings[i]);
+            corpus.getPacked(i).encode(this.binaryHands);
+        }
+        this.shoe = new Shoe(this.numDecks, HandCorpus.SEED);
+    }
+
+    @Benchmark
+    public Card fromString() throws BadEncodingException {
+        return Card.fromString(this.encodings[this.index++ & (HandCorpus.SIZE - 1)]);
+    }
+
+    @Benchmark
+    public int parse() {
+        String encoding = this.encodings[this.index++ & (HandCorpus.SIZE - 1)];
+        return CardParser.parse(encoding, 0, encoding.length());
+    }
+
+    @Benchmark
+    public PackedHand parseHand() throws BadEncodingException {
+        this.hand.clear();
+        for (String encoding : this.handEncodings[this.index++ & (HandCorpus.SIZE - 1)]) {
+            this.hand.add(Card.fromString(encoding));
+        }
+        return this.hand;
+    }
+
+    @Benchmark
+    public PackedHand parseLine() {
+        this.parser.parseLine(this.handLines[this.index++ & (HandCorpus.SIZE - 1)], this.hand);
+        return this.hand;
+    }
+
+    @Benchmark
+    public PackedHand decodeHand() {
+        this.hand.decode(this.binaryHands, (this.index++ & (HandCorpus.SIZE - 1)) * PackedHand.ENCODED_SIZE);
+        return this.hand;
+    }
+
+    @Benchmark
+    public List<Card> shuffledHand() {
+        return Deck.shuffledHand(this.handSize, this.numDecks);
+    }
+
+    @Benchmark
+    public PackedHand dealHand() {
+        this.shoe.reset();
+        this.hand.clear();
+        this.shoe.deal(this.hand, this.handSize);
+        return this.hand;
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import game.Contract;
+import hand.Card;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ui.Command;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the 'buy' command end to end, from parsing the command line to printing the
+ * answer. Output is discarded while the benchmark runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBenchmark {
+    private final static int NUM_COMMANDS = 16;
+
+    @Param({"11", "20", "30"})
+    public int handSize;
+
+    @Param({"2", "4", "8"})
+    public int numDecks;
+
+    @Param({"TWO_BOOKS", "ONE_BOOK_ONE_RUN", "TWO_BOOKS_ONE_RUN", "THREE_RUNS"})
+    public Contract contract;
+
+    private Command[] commands;
+    private String[] buyLines;
+    private PrintStream stdout;
+    private int index;
+
+    @Setup
+    public void setup() {
+        this.stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        HandCorpus corpus = new HandCorpus(this.handSize, this.numDecks);
+        HandCorpus draws = new HandCorpus(1, this.numDecks);
+        this.commands = new Command[NUM_COMMANDS];
+        for (int i = 0; i < NUM_COMMANDS; i++) {
+            Command command = new Command();
+            command.readCommand("decks " + this.numDecks);
+            command.readCommand("books " + this.contract.getNumBooks());
+            command.readCommand("runs " + this.contract.getNumRuns());
+            for (Card card : corpus.get(i)) {
+                command.readCommand("add " + card.encode());
+            }
+            this.commands[i] = command;
+        }
+        this.buyLines = new String[HandCorpus.SIZE];
+        for (int i = 0; i < HandCorpus.SIZE; i++) {
+            this.buyLines[i] = "buy " + draws.get(i).get(0).encode();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(this.stdout);
+    }
+
+    @Benchmark
+    public void buy() {
+        int i = this.index++;
+        this.commands[i & (NUM_COMMANDS - 1)].readCommand(this.buyLines[i & (HandCorpus.SIZE - 1)]);
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import hand.Card;
+import hand.PackedHand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A fixed-seed corpus of random hands, so that every benchmark run measures the same hands.
+ */
+public class HandCorpus {
+    public final static long SEED = 20240601L;
+    public final static int SIZE = 256;
+
+    private final List<List<Card>> hands = new ArrayList<>(SIZE);
+    private final PackedHand[] packedHands = new PackedHand[SIZE];
+
+    /**
+     * Deals SIZE hands of the given size, each from a freshly shuffled shoe of the given number
+     * of decks.
+     *
+     * @param handSize the number of cards in each hand
+     * @param numDecks the number of decks in the shoe
+     */
+    public HandCorpus(int handSize, int numDecks) {
+        SplittableRandom random = new SplittableRandom(SEED ^ (31L * handSize + numDecks));
+        int[] shoe = new int[Card.NUM_CARDS * numDecks];
+        for (int i = 0; i < shoe.length; i++) {
+            shoe[i] = i % Card.NUM_CARDS;
+        }
+        for (int i = 0; i < SIZE; i++) {
+            List<Card> hand = new ArrayList<>(handSize);
+            // Partial Fisher-Yates shuffle of the shoe
+            for (int j = 0; j < handSize; j++) {
+                int swap = j + random.nextInt(shoe.length - j);
+                int ordinal = shoe[swap];
+                shoe[swap] = shoe[j];
+                shoe[j] = ordinal;
+                hand.add(Card.fromOrdinal(ordinal));
+            }
+            this.hands.add(hand);
+            this.packedHands[i] = PackedHand.fromList(hand);
+        }
+    }
+
+    /**
+     * Returns the hand at the given index, as a list of cards in dealt order.
+     *
+     * @param index the index of the hand (taken modulo SIZE)
+     * @return the list of cards
+     */
+    public List<Card> get(int index) {
+        return this.hands.get(index & (SIZE - 1));
+    }
+
+    /**
+     * Returns the hand at the given index, packed. The hand must not be modified.
+     *
+     * @param index the index of the hand (taken modulo SIZE)
+     * @return the packed hand of cards
+     */
+    public PackedHand getPacked(int index) {
+        return this.packedHands[index & (SIZE - 1)];
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import algorithms.Algorithm;
+import algorithms.RunAlgorithm;
+import hand.Card;
+import hand.CardType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the map-based run search (adjCardsSearch over a TreeMap per suit) with the
+ * sliding-window search now used by RunAlgorithm.getRunBases, on multi-deck shoes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RunSearchBenchmark {
+    private final static int NUM_RUNS = 3;
+    private final static int MIN_RUN_CARDS = 4;
+
+    @Param({"11", "20", "30"})
+    public int handSize;
+
+    @Param({"2", "4", "8"})
+    public int numDecks;
+
+    private HandCorpus corpus;
+    private int index;
+
+    @Setup
+    public void setup() {
+        this.corpus = new HandCorpus(this.handSize, this.numDecks);
+    }
+
+    @Benchmark
+    public List<List<Card>> mapSearch() {
+        List<Card> cards = this.corpus.get(this.index++);
+        List<List<Card>> stacks = new ArrayList<>();
+        for (CardType suit : Card.getSuits()) {
+            Map<Integer, List<Card>> cardMap = Algorithm.getCardFreqMap(cards, suit);
+            for (int numAdjCards = MIN_RUN_CARDS; numAdjCards > 0; numAdjCards--) {
+                stacks.addAll(RunAlgorithm.adjCardsSearch(cardMap, numAdjCards));
+            }
+        }
+        Algorithm.sortStacks(stacks);
+        return new ArrayList<>(stacks.subList(0, Math.min(stacks.size(), NUM_RUNS)));
+    }
+
+    @Benchmark
+    public List<List<Card>> windowSearch() {
+        return RunAlgorithm.getRunBases(this.corpus.get(this.index++), NUM_RUNS);
+    }
+
+    @Benchmark
+    public List<List<Card>> windowSearchPacked() {
+        return RunAlgorithm.getRunBases(this.corpus.getPacked(this.index++), NUM_RUNS);
+    }
+}
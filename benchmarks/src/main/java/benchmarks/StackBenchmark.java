@@ -0,0 +1,101 @@
+package benchmarks;
+
+import algorithms.Algorithm;
+import algorithms.BookAlgorithm;
+import algorithms.RunAlgorithm;
+import hand.Card;
+import hand.CardType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the book and run searches on their own.
+ *
+ * RunAlgorithm.adjCardsSearch removes the cards it uses from its map, so each call is given a
+ * fresh map. The cost of building the map alone is measured by freqMap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackBenchmark {
+    private final static int NUM_STACKS = 3;
+    private final static int MIN_RUN_CARDS = 4;
+
+    @Param({"11", "20", "30"})
+    public int handSize;
+
+    @Param({"1", "2", "4", "8"})
+    public int numDecks;
+
+    private HandCorpus corpus;
+    private Map<Integer, List<Card>>[] spadeMaps;
+    private int index;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        this.corpus = new HandCorpus(this.handSize, this.numDecks);
+        this.spadeMaps = new Map[HandCorpus.SIZE];
+        for (int i = 0; i < HandCorpus.SIZE; i++) {
+            this.spadeMaps[i] = Algorithm.getCardFreqMap(this.corpus.get(i), CardType.SPADE);
+        }
+    }
+
+    @Benchmark
+    public List<List<Card>> getBookBases() {
+        return BookAlgorithm.getBookBases(this.corpus.get(this.index++), NUM_STACKS);
+    }
+
+    @Benchmark
+    public List<List<Card>> getBookBasesPacked() {
+        return BookAlgorithm.getBookBases(this.corpus.getPacked(this.index++), NUM_STACKS);
+    }
+
+    @Benchmark
+    public List<List<Card>> getRunBases() {
+        return RunAlgorithm.getRunBases(this.corpus.get(this.index++), NUM_STACKS);
+    }
+
+    @Benchmark
+    public List<List<Card>> getRunBasesPacked() {
+        return RunAlgorithm.getRunBases(this.corpus.getPacked(this.index++), NUM_STACKS);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Card>> freqMap() {
+        return Algorithm.getCardFreqMap(this.corpus.get(this.index++), CardType.SPADE);
+    }
+
+    @Benchmark
+    public void adjCardsSearch(Blackhole blackhole) {
+        Map<Integer, List<Card>> cardMap = Algorithm.getCardFreqMap(this.corpus.get(this.index++), CardType.SPADE);
+        for (int numAdjCards = MIN_RUN_CARDS; numAdjCards > 0; numAdjCards--) {
+            blackhole.consume(RunAlgorithm.adjCardsSearch(cardMap, numAdjCards));
+        }
+    }
+
+    @Benchmark
+    public void getAdjCardsList(Blackhole blackhole) {
+        Map<Integer, List<Card>> cardMap = this.spadeMaps[this.index++ & (HandCorpus.SIZE - 1)];
+        for (int cardNum = 1; cardNum <= 13; cardNum++) {
+            blackhole.consume(RunAlgorithm.getAdjCardsList(cardMap, cardNum));
+        }
+    }
+}
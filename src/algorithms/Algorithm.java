@@ -3,8 +3,12 @@ package algorithms;
 import hand.Card;
 import hand.CardType;
 import hand.Deck;
+import hand.ImmutableHand;
+import hand.PackedHand;
+import util.Metrics;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -48,6 +52,18 @@ public abstract class Algorithm {
         return cardMap;
     }
 
+    /**
+     * Maps card numbers to the cards of the given immutable hand, as per
+     * getCardFreqMap(hand.toList(), suit).
+     *
+     * @param hand the immutable hand of cards
+     * @param suit the suit of the cards to appear in map
+     * @return a map between card numbers and instances of occurrence, based on suit
+     */
+    public static Map<Integer, List<Card>> getCardFreqMap(ImmutableHand hand, CardType suit) {
+        return getCardFreqMap(hand.toList(), suit);
+    }
+
     /**
      * Returns all jokers present in a given list of cards.
      *
@@ -64,6 +80,40 @@ public abstract class Algorithm {
         return jokers;
     }
 
+    /**
+     * Returns all jokers present in a given packed hand, BLACK JOKERS first.
+     *
+     * @param hand the packed hand of cards
+     * @return the jokers in the given hand of cards
+     */
+    public static List<Card> getJokers(PackedHand hand) {
+        List<Card> jokers = new ArrayList<>(hand.numJokers());
+        for (CardType type : new CardType[] {CardType.BLACK_JOKER, CardType.RED_JOKER}) {
+            int ordinal = Card.ordinal(JOKER_NUM, type);
+            for (int i = hand.count(ordinal); i > 0; i--) {
+                jokers.add(Card.fromOrdinal(ordinal));
+            }
+        }
+        return jokers;
+    }
+
+    /**
+     * Returns all jokers present in a given immutable hand, BLACK JOKERS first.
+     *
+     * @param hand the immutable hand of cards
+     * @return the jokers in the given hand of cards
+     */
+    public static List<Card> getJokers(ImmutableHand hand) {
+        List<Card> jokers = new ArrayList<>(hand.numJokers());
+        for (CardType type : new CardType[] {CardType.BLACK_JOKER, CardType.RED_JOKER}) {
+            int ordinal = Card.ordinal(JOKER_NUM, type);
+            for (int i = hand.count(ordinal); i > 0; i--) {
+                jokers.add(Card.fromOrdinal(ordinal));
+            }
+        }
+        return jokers;
+    }
+
     /**
      * Determine score of list of cards.
      *
@@ -77,6 +127,20 @@ public abstract class Algorithm {
         return score;
     }
 
+    /**
+     * Determine score of an immutable hand.
+     *
+     * @param hand the immutable hand of cards
+     * @return the score of the hand
+     */
+    public static int getScore(ImmutableHand hand) {
+        int score = 0;
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            score += hand.count(ordinal) * Card.fromOrdinal(ordinal).getCardScore();
+        }
+        return score;
+    }
+
     /**
      * Sorts card stacks based on size and score.
      * Stacks containing more cards precede stacks containing fewer cards.
@@ -109,6 +173,9 @@ public abstract class Algorithm {
      * @return a map between the Books / Runs and their optimal bases
      */
     public static Map<String, List<List<Card>>> getOptimalBases(List<Card> cards, int numBooks, int numRuns) {
+        if (Metrics.ENABLED) {
+            Metrics.recordBases(cards.size(), false);
+        }
         Map<String, List<List<Card>>> optimalBases = new TreeMap<>();
         Integer numMissingCards = null;
         List<List<Card>> bookBases;
@@ -156,10 +223,15 @@ public abstract class Algorithm {
                     // First iteration
                     numMissingCards = localNumMissingCards;
                     optimalBases = localBases;
-                } else if (localNumMissingCards < numMissingCards) {
-                    // Second iteration is more optimal
-                    numMissingCards = localNumMissingCards;
-                    optimalBases = localBases;
+                } else {
+                    if (Metrics.ENABLED) {
+                        Metrics.recordOrdering(numMissingCards, localNumMissingCards);
+                    }
+                    if (localNumMissingCards < numMissingCards) {
+                        // Second iteration is more optimal
+                        numMissingCards = localNumMissingCards;
+                        optimalBases = localBases;
+                    }
                 }
             }
         }
@@ -168,6 +240,206 @@ public abstract class Algorithm {
         return optimalBases;
     }
 
+    /**
+     * Determines some optimal bases from the given packed hand, based on the number of runs
+     * and/or books required. Produces the same bases as
+     * getOptimalBases(hand.toList(), numBooks, numRuns).
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @return a map between the Books / Runs and their optimal bases
+     */
+    public static Map<String, List<List<Card>>> getOptimalBases(PackedHand hand, int numBooks, int numRuns) {
+        if (Metrics.ENABLED) {
+            Metrics.recordBases(hand.size(), false);
+        }
+        Map<String, List<List<Card>>> optimalBases = new TreeMap<>();
+        if (numRuns == 0) {
+            // Just need books
+            optimalBases.put("Books", BookAlgorithm.getBookBases(hand, numBooks));
+        } else if (numBooks == 0) {
+            // Just need runs
+            optimalBases.put("Runs", RunAlgorithm.getRunBases(hand, numRuns));
+        } else {
+            // Need both books and runs
+            // Check to see if forming runs, or books, first is more optimal
+            int numMissingCards = getOrderedBases(hand, numBooks, numRuns, true, optimalBases);
+            Map<String, List<List<Card>>> localBases = new TreeMap<>();
+            int localNumMissingCards = getOrderedBases(hand, numBooks, numRuns, false, localBases);
+            if (Metrics.ENABLED) {
+                Metrics.recordOrdering(numMissingCards, localNumMissingCards);
+            }
+            if (localNumMissingCards < numMissingCards) {
+                // Forming runs first is more optimal
+                optimalBases = localBases;
+            }
+        }
+        // Distribute jokers (if needed)
+        addJokersToBases(optimalBases, getJokers(hand));
+        return optimalBases;
+    }
+
+    /**
+     * Determines some optimal bases from the given immutable hand, as per
+     * getOptimalBases(PackedHand, numBooks, numRuns).
+     *
+     * @param hand the immutable hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @return a map between the Books / Runs and their optimal bases
+     */
+    public static Map<String, List<List<Card>>> getOptimalBases(ImmutableHand hand, int numBooks, int numRuns) {
+        return getOptimalBases(hand.toPackedHand(), numBooks, numRuns);
+    }
+
+    /**
+     * Greedily forms book bases and then run bases from the cards left over, or run bases and
+     * then book bases, from the given packed hand. Jokers are not distributed.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param booksFirst whether to form the books first
+     * @param bases the map in which the Books / Runs bases are put
+     * @return the number of cards missing from the bases, ignoring jokers
+     */
+    static int getOrderedBases(PackedHand hand, int numBooks, int numRuns, boolean booksFirst,
+                               Map<String, List<List<Card>>> bases) {
+        PackedHand localHand = new PackedHand(hand);
+        List<List<Card>> bookBases;
+        List<List<Card>> runBases;
+        int numMissingCards;
+        if (booksFirst) {
+            bookBases = BookAlgorithm.getBookBases(localHand, numBooks);
+            localHand.removeBases(bookBases);
+            runBases = RunAlgorithm.getRunBases(localHand, numRuns);
+            numMissingCards = BookAlgorithm.numCardsMissing(localHand, bookBases, numBooks, false)
+                    + RunAlgorithm.numCardsMissing(localHand, runBases, numRuns, false);
+        } else {
+            runBases = RunAlgorithm.getRunBases(localHand, numRuns);
+            localHand.removeBases(runBases);
+            bookBases = BookAlgorithm.getBookBases(localHand, numBooks);
+            numMissingCards = RunAlgorithm.numCardsMissing(localHand, runBases, numRuns, false)
+                    + BookAlgorithm.numCardsMissing(localHand, bookBases, numBooks, false);
+        }
+        bases.put("Books", bookBases);
+        bases.put("Runs", runBases);
+        return numMissingCards;
+    }
+
+    /**
+     * Determines some optimal bases from the given list of cards using the given strategy.
+     *
+     * @param cards the list of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return a map between the Books / Runs and their optimal bases
+     */
+    public static Map<String, List<List<Card>>> getOptimalBases(List<Card> cards, int numBooks, int numRuns,
+                                                                Strategy strategy) {
+        if (strategy == Strategy.EXACT) {
+            return ExactAlgorithm.getOptimalBases(cards, numBooks, numRuns);
+        }
+        return getOptimalBases(cards, numBooks, numRuns);
+    }
+
+    /**
+     * Determines some optimal bases from the given packed hand using the given strategy.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return a map between the Books / Runs and their optimal bases
+     */
+    public static Map<String, List<List<Card>>> getOptimalBases(PackedHand hand, int numBooks, int numRuns,
+                                                                Strategy strategy) {
+        if (strategy == Strategy.EXACT) {
+            return ExactAlgorithm.getOptimalBases(hand, numBooks, numRuns);
+        }
+        return getOptimalBases(hand, numBooks, numRuns);
+    }
+
+    /**
+     * Determines some optimal bases from the given immutable hand using the given strategy.
+     *
+     * @param hand the immutable hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return a map between the Books / Runs and their optimal bases
+     */
+    public static Map<String, List<List<Card>>> getOptimalBases(ImmutableHand hand, int numBooks, int numRuns,
+                                                                Strategy strategy) {
+        return getOptimalBases(hand.toPackedHand(), numBooks, numRuns, strategy);
+    }
+
+    /**
+     * Determines, for every distinct card (including both jokers), how many fewer cards would
+     * be missing if that card were added to the given list of cards.
+     *
+     * @param cards the list of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return a map between each card and its improvement, from most to least improving
+     */
+    public static Map<Card, Integer> rankDraws(List<Card> cards, int numBooks, int numRuns, Strategy strategy) {
+        return rankDraws(PackedHand.fromList(cards), numBooks, numRuns, strategy);
+    }
+
+    /**
+     * Determines, for every distinct card (including both jokers), how many fewer cards would
+     * be missing if that card were added to the given immutable hand.
+     *
+     * @param hand the immutable hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return a map between each card and its improvement, from most to least improving
+     */
+    public static Map<Card, Integer> rankDraws(ImmutableHand hand, int numBooks, int numRuns, Strategy strategy) {
+        return rankDraws(hand.toPackedHand(), numBooks, numRuns, strategy);
+    }
+
+    /**
+     * Determines, for every distinct card (including both jokers), how many fewer cards would
+     * be missing if that card were added to the given packed hand.
+     * The hand is analysed once, and the analysis is shared between every card.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return a map between each card and its improvement, from most to least improving
+     */
+    public static Map<Card, Integer> rankDraws(PackedHand hand, int numBooks, int numRuns, Strategy strategy) {
+        HandEvaluator evaluator = new HandEvaluator(hand, numBooks, numRuns, strategy);
+        int numMissingCards = evaluator.numCardsMissing();
+        int[] improvements = new int[Card.NUM_CARDS];
+        List<Card> draws = new ArrayList<>(Card.NUM_CARDS);
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            Card card = Card.fromOrdinal(ordinal);
+            if (card.getCardType() == CardType.RED_JOKER && strategy == Strategy.EXACT) {
+                // Both jokers are equally wild
+                improvements[ordinal] = improvements[ordinal - 1];
+            } else {
+                improvements[ordinal] = numMissingCards - evaluator.numCardsMissingWith(card);
+            }
+            draws.add(card);
+        }
+        // Most improving cards first. Stable, so ties remain in ordinal order
+        draws.sort((Card cardOne, Card cardTwo) -> -Integer.compare(
+                improvements[cardOne.getOrdinal()], improvements[cardTwo.getOrdinal()]));
+        Map<Card, Integer> ranking = new LinkedHashMap<>();
+        for (Card card : draws) {
+            ranking.put(card, improvements[card.getOrdinal()]);
+        }
+        return ranking;
+    }
+
     /**
      * Distributes jokers to any incomplete bases.
      * Terminates once all jokers are distributed, or all bases have been considered.
@@ -175,6 +447,14 @@ public abstract class Algorithm {
      * @param jokers the list of jokers
      */
     public static void addJokersToBases(Map<String, List<List<Card>>> bases, List<Card> jokers) {
+        int numJokers = jokers.size();
+        distributeJokers(bases, jokers);
+        if (Metrics.ENABLED) {
+            Metrics.recordJokers(numJokers, jokers.size());
+        }
+    }
+
+    private static void distributeJokers(Map<String, List<List<Card>>> bases, List<Card> jokers) {
         for (Map.Entry<String, List<List<Card>>> entry : bases.entrySet()) {
             // Consider basis sets for books and runs
             String stackType = entry.getKey();
@@ -253,4 +533,20 @@ public abstract class Algorithm {
             }
         }
     }
+
+    /**
+     * Returns the given immutable hand without the cards in the given bases.
+     *
+     * @param hand the immutable hand of cards
+     * @param bases the list of bases
+     * @return the hand left after removing the bases
+     */
+    public static ImmutableHand removeBases(ImmutableHand hand, List<List<Card>> bases) {
+        for (List<Card> basis : bases) {
+            for (Card card : basis) {
+                hand = hand.without(card);
+            }
+        }
+        return hand;
+    }
 }
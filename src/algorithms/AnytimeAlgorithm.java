@@ -0,0 +1,125 @@
+package algorithms;
+
+import hand.Card;
+import hand.PackedHand;
+import util.Metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * An algorithm which determines bases within a time and node budget, for callers with hard
+ * deadlines.
+ *
+ * The greedy bases are found first, with the books-first and runs-first orderings run
+ * concurrently when there is more than one processor. The runs-first ordering is forked to
+ * the common pool; if no worker has taken it by the time the books-first ordering is done,
+ * it is run by the caller instead, and if it is still running, it is only waited for until
+ * the deadline, after which the books-first bases are used. The greedy bases are then
+ * refined by the branch-and-bound search of ExactAlgorithm for whatever remains of the
+ * budget. The search checks its budget every few dozen nodes, so it stops within
+ * microseconds of the deadline, keeping the best bases it has found. The result records
+ * whether the bases are proven optimal, which they are whenever the search finishes in time.
+ */
+public class AnytimeAlgorithm extends Algorithm {
+    private final static boolean HAS_SPARE_PROCESSORS = Runtime.getRuntime().availableProcessors() > 1;
+
+    /**
+     * Determines the best bases that can be found from the given packed hand within the
+     * given budget.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param budgetNanos the time, in nanoseconds, after which to stop searching
+     * @param maxNodes the number of search nodes after which to stop searching
+     * @return the best bases found, and whether they are optimal
+     */
+    public static SolverResult getOptimalBases(PackedHand hand, int numBooks, int numRuns, long budgetNanos,
+                                               long maxNodes) {
+        long startTime = System.nanoTime();
+        long deadline = startTime + budgetNanos;
+        Map<String, List<List<Card>>> greedyBases = getGreedyBases(hand, numBooks, numRuns, deadline);
+        int greedyMissing = numCardsMissing(greedyBases, numBooks, numRuns);
+        if (greedyMissing == 0) {
+            return new SolverResult(greedyBases, 0, true, false, 0, System.nanoTime() - startTime);
+        }
+        ExactAlgorithm search = new ExactAlgorithm(hand, numBooks, numRuns);
+        boolean isFinished = search.searchWithin(deadline, maxNodes);
+        int searchMissing = Math.max(0, search.getMaxNumCards() - search.getBestNumCards() - hand.numJokers());
+        if (searchMissing < greedyMissing || (isFinished && searchMissing == greedyMissing)) {
+            return new SolverResult(search.getBestBases(hand), searchMissing, isFinished, searchMissing < greedyMissing,
+                    search.getNumNodes(), System.nanoTime() - startTime);
+        }
+        return new SolverResult(greedyBases, greedyMissing, isFinished, false, search.getNumNodes(),
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Determines the greedy bases of the given packed hand, as Algorithm.getOptimalBases,
+     * trying both orderings in parallel when there are spare processors. Only the books-first
+     * ordering is used if the runs-first ordering has not finished by the deadline.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param deadline the System.nanoTime() after which not to wait for the runs-first ordering
+     * @return a map between the Books / Runs and their greedy bases
+     */
+    private static Map<String, List<List<Card>>> getGreedyBases(PackedHand hand, int numBooks, int numRuns,
+                                                                long deadline) {
+        if (numBooks == 0 || numRuns == 0 || !HAS_SPARE_PROCESSORS) {
+            return Algorithm.getOptimalBases(hand, numBooks, numRuns);
+        }
+        if (Metrics.ENABLED) {
+            Metrics.recordBases(hand.size(), false);
+        }
+        Map<String, List<List<Card>>> runsFirst = new TreeMap<>();
+        ForkJoinTask<Integer> runsFirstTask = ForkJoinTask.adapt(
+                () -> getOrderedBases(hand, numBooks, numRuns, false, runsFirst)).fork();
+        Map<String, List<List<Card>>> bases = new TreeMap<>();
+        int booksFirstMissing = getOrderedBases(hand, numBooks, numRuns, true, bases);
+        Integer runsFirstMissing;
+        if (runsFirstTask.tryUnfork()) {
+            // No worker has started it, so run it here rather than wait for one
+            runsFirstMissing = runsFirstTask.invoke();
+        } else {
+            runsFirstMissing = awaitUntil(runsFirstTask, deadline);
+        }
+        if (runsFirstMissing != null) {
+            if (Metrics.ENABLED) {
+                Metrics.recordOrdering(booksFirstMissing, runsFirstMissing);
+            }
+            if (runsFirstMissing < booksFirstMissing) {
+                bases = runsFirst;
+            }
+        }
+        addJokersToBases(bases, getJokers(hand));
+        return bases;
+    }
+
+    /**
+     * Waits for the given task to finish, but not beyond the given deadline.
+     *
+     * @param task the task
+     * @param deadline the System.nanoTime() after which to stop waiting
+     * @return the result of the task, or null if it did not finish in time
+     */
+    private static Integer awaitUntil(ForkJoinTask<Integer> task, long deadline) {
+        try {
+            return task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
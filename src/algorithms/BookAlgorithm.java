@@ -1,7 +1,10 @@
 package algorithms;
 
 import hand.Card;
+import hand.CardType;
 import hand.Deck;
+import hand.ImmutableHand;
+import hand.PackedHand;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -49,6 +52,59 @@ public class BookAlgorithm extends Algorithm {
         return bases;
     }
 
+    /**
+     * Determines the best way to form books from the given packed hand, based on the number
+     * of books required. Produces the same bases as getBookBases(hand.toList(), numBooks).
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @return a list containing the book bases
+     */
+    public static List<List<Card>> getBookBases(PackedHand hand, int numBooks) {
+        List<List<Card>> stacks = new ArrayList<>();
+        for (int cardNum = 1; cardNum < PackedHand.NUM_RANKS + 1; cardNum++) {
+            if (hand.countNum(cardNum) == 0) {
+                continue;
+            }
+            List<Card> stack = new ArrayList<>(MIN_BOOK_CARDS);
+            for (CardType suit : CardType.values()) {
+                if (suit == CardType.BLACK_JOKER || suit == CardType.RED_JOKER) {
+                    continue;
+                }
+                Card card = Card.fromOrdinal(Card.ordinal(cardNum, suit));
+                for (int i = hand.count(cardNum, suit); i > 0; i--) {
+                    stack.add(card);
+                    if (stack.size() == MIN_BOOK_CARDS) {
+                        // Complete book. Add to stacks
+                        stacks.add(stack);
+                        stack = new ArrayList<>(MIN_BOOK_CARDS);
+                    }
+                }
+            }
+            // Add remaining cards to stacks (may contain 0, 1 or 2 cards)
+            stacks.add(stack);
+        }
+        // Sort stacks for optimality
+        sortStacks(stacks);
+        List<List<Card>> bases = new ArrayList<>();
+        for (int i = 0; i < Math.min(stacks.size(), numBooks); i++) {
+            bases.add(stacks.get(i));
+        }
+        return bases;
+    }
+
+    /**
+     * Determines the best way to form books from the given immutable hand, as per
+     * getBookBases(PackedHand, numBooks).
+     *
+     * @param hand the immutable hand of cards
+     * @param numBooks the number of required books
+     * @return a list containing the book bases
+     */
+    public static List<List<Card>> getBookBases(ImmutableHand hand, int numBooks) {
+        return getBookBases(hand.toPackedHand(), numBooks);
+    }
+
     /**
      * Determine how many more cards are needed to form the required number of books
      * given the current hand of cards and bases. Choice to include jokers or not.
@@ -72,4 +128,42 @@ public class BookAlgorithm extends Algorithm {
         int numCardsMissing = MIN_BOOK_CARDS * numBooks - numBasesCards - numJokers;
         return Math.max(0, numCardsMissing);
     }
+
+    /**
+     * Determine how many more cards are needed to form the required number of books
+     * given the current packed hand and bases. Choice to include jokers or not.
+     *
+     * @param hand the packed hand of cards
+     * @param bases the book bases
+     * @param numBooks the number of books required
+     * @param jokers true if jokers should be included. False otherwise.
+     * @return the number of cards missing to form desired books
+     */
+    public static int numCardsMissing(PackedHand hand, List<List<Card>> bases, int numBooks, boolean jokers) {
+        int numJokers = jokers ? hand.numJokers() : 0;
+        int numBasesCards = 0;
+        for (List<Card> basis : bases) {
+            numBasesCards += basis.size();
+        }
+        return Math.max(0, MIN_BOOK_CARDS * numBooks - numBasesCards - numJokers);
+    }
+
+    /**
+     * Determine how many more cards are needed to form the required number of books
+     * given the current immutable hand and bases. Choice to include jokers or not.
+     *
+     * @param hand the immutable hand of cards
+     * @param bases the book bases
+     * @param numBooks the number of books required
+     * @param jokers true if jokers should be included. False otherwise.
+     * @return the number of cards missing to form desired books
+     */
+    public static int numCardsMissing(ImmutableHand hand, List<List<Card>> bases, int numBooks, boolean jokers) {
+        int numJokers = jokers ? hand.numJokers() : 0;
+        int numBasesCards = 0;
+        for (List<Card> basis : bases) {
+            numBasesCards += basis.size();
+        }
+        return Math.max(0, MIN_BOOK_CARDS * numBooks - numBasesCards - numJokers);
+    }
 }
@@ -0,0 +1,139 @@
+package algorithms;
+
+import hand.Card;
+import hand.PackedHand;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * A class representing an algorithm to rank the cards of a hand as discards.
+ */
+public class DiscardAlgorithm extends Algorithm {
+    public final static int PARALLEL_HAND_SIZE = 30;
+
+    /**
+     * Ranks every distinct card in the given list of cards as a discard.
+     *
+     * @param cards the list of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return a map between each discard and the number of cards missing after it, from best to worst
+     */
+    public static Map<Card, Integer> rankDiscards(List<Card> cards, int numBooks, int numRuns, Strategy strategy) {
+        return rankDiscards(PackedHand.fromList(cards), numBooks, numRuns, strategy);
+    }
+
+    /**
+     * Ranks every distinct card in the given packed hand as a discard.
+     * Discards which leave fewer cards missing rank first. Ties are broken by discarding
+     * the card with the higher score first.
+     *
+     * Hands of at least PARALLEL_HAND_SIZE cards are evaluated in parallel.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return a map between each discard and the number of cards missing after it, from best to worst
+     */
+    public static Map<Card, Integer> rankDiscards(PackedHand hand, int numBooks, int numRuns, Strategy strategy) {
+        List<Card> discards = new ArrayList<>();
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            if (hand.count(ordinal) > 0) {
+                discards.add(Card.fromOrdinal(ordinal));
+            }
+        }
+        int[] numMissing = new int[Card.NUM_CARDS];
+        if (hand.size() < PARALLEL_HAND_SIZE) {
+            evaluateDiscards(hand, numBooks, numRuns, strategy, discards, numMissing);
+        } else {
+            // Split the discards between workers, each with their own evaluator
+            int numWorkers = Math.min(discards.size(), Runtime.getRuntime().availableProcessors());
+            IntStream.range(0, numWorkers).parallel().forEach((int worker) -> {
+                int from = discards.size() * worker / numWorkers;
+                int to = discards.size() * (worker + 1) / numWorkers;
+                evaluateDiscards(hand, numBooks, numRuns, strategy, discards.subList(from, to), numMissing);
+            });
+        }
+        discards.sort((Card cardOne, Card cardTwo) -> {
+            int missingOne = numMissing[cardOne.getOrdinal()];
+            int missingTwo = numMissing[cardTwo.getOrdinal()];
+            if (missingOne == missingTwo) {
+                // Higher score discards precede lower score discards
+                return -Integer.compare(cardOne.getCardScore(), cardTwo.getCardScore());
+            } else {
+                // Discards leaving fewer cards missing precede the rest
+                return Integer.compare(missingOne, missingTwo);
+            }
+        });
+        Map<Card, Integer> ranking = new LinkedHashMap<>();
+        for (Card card : discards) {
+            ranking.put(card, numMissing[card.getOrdinal()]);
+        }
+        return ranking;
+    }
+
+    /**
+     * Returns the best card to discard from the given list of cards, or null if empty.
+     *
+     * @param cards the list of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return the best discard
+     */
+    public static Card getBestDiscard(List<Card> cards, int numBooks, int numRuns, Strategy strategy) {
+        for (Card card : rankDiscards(cards, numBooks, numRuns, strategy).keySet()) {
+            return card;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the best card to discard from the hand held by the given evaluator, or null
+     * if the hand is empty. Ties are broken as in rankDiscards.
+     *
+     * @param evaluator the evaluator holding the hand
+     * @return the best discard
+     */
+    public static Card getBestDiscard(HandEvaluator evaluator) {
+        Card discard = null;
+        int discardMissing = 0;
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            if (evaluator.count(ordinal) == 0) {
+                continue;
+            }
+            Card card = Card.fromOrdinal(ordinal);
+            int numMissing = evaluator.numCardsMissingWithout(card);
+            if (discard == null || numMissing < discardMissing
+                    || (numMissing == discardMissing && card.getCardScore() > discard.getCardScore())) {
+                discard = card;
+                discardMissing = numMissing;
+            }
+        }
+        return discard;
+    }
+
+    /**
+     * Records how many cards would be missing after each of the given discards.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @param discards the discards to evaluate
+     * @param numMissing the array in which results are recorded, indexed by card ordinal
+     */
+    private static void evaluateDiscards(PackedHand hand, int numBooks, int numRuns, Strategy strategy,
+                                         List<Card> discards, int[] numMissing) {
+        HandEvaluator evaluator = new HandEvaluator(hand, numBooks, numRuns, strategy);
+        for (Card card : discards) {
+            numMissing[card.getOrdinal()] = evaluator.numCardsMissingWithout(card);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package algorithms;
+
+import hand.CanonicalHand;
+import hand.Card;
+import hand.PackedHand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of hand evaluations, placed in front of
+ * Algorithm.getOptimalBases and Algorithm.numCardsMissing.
+ *
+ * Entries are keyed by the multiset of cards in the hand together with the required
+ * number of books and runs and the strategy, so evaluations are performed on the packed
+ * form of the hand (see PackedHand.toList() for the order this implies). Reads and inserts
+ * are lock-free. Once full, entries are evicted using the CLOCK algorithm: each insert
+ * advances the shared clock hand atomically and claims a slot with compare-and-set, so
+ * threads inserting at the same time sweep different slots instead of queueing on a lock.
+ * While inserts are in progress, the cache may briefly hold a few more entries than its
+ * capacity. Cached bases cannot be modified.
+ *
+ * Under the EXACT strategy, the number of cards missing does not depend on which suit is
+ * which, so hands are keyed and evaluated by their CanonicalHand, and the bases mapped back
+ * to the hand's own suits. Every permutation of a hand's suits then shares one entry. The
+ * bases are those of the canonical hand, which may differ from (but are as good as) the
+ * bases found from the hand directly. The GREEDY strategy takes suits in a fixed order, so
+ * its hands are keyed as they are.
+ */
+public class EvaluationCache {
+    public final static int DEFAULT_CAPACITY = 1 << 16;
+
+    private final ConcurrentHashMap<Key, Entry> entries;
+    private final AtomicReferenceArray<Key> clock;
+    private final AtomicInteger clockHand = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Instantiates a new cache holding up to DEFAULT_CAPACITY evaluations.
+     */
+    public EvaluationCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new cache holding up to the given number of evaluations.
+     *
+     * @param capacity the maximum number of evaluations held
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public EvaluationCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.entries = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        this.clock = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Determines some optimal bases from the given list of cards, as per
+     * Algorithm.getOptimalBases, reusing a previous evaluation of the same cards if possible.
+     *
+     * @param cards the list of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return an unmodifiable map between the Books / Runs and their optimal bases
+     */
+    public Map<String, List<List<Card>>> getOptimalBases(List<Card> cards, int numBooks, int numRuns,
+                                                         Strategy strategy) {
+        return getOptimalBases(PackedHand.fromList(cards), numBooks, numRuns, strategy);
+    }
+
+    /**
+     * Determines some optimal bases from the given packed hand, as per
+     * Algorithm.getOptimalBases, reusing a previous evaluation of the same cards if possible.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return an unmodifiable map between the Books / Runs and their optimal bases
+     */
+    public Map<String, List<List<Card>>> getOptimalBases(PackedHand hand, int numBooks, int numRuns,
+                                                         Strategy strategy) {
+        if (strategy == Strategy.EXACT) {
+            CanonicalHand canonical = CanonicalHand.of(hand);
+            Map<String, List<List<Card>>> bases = getEntry(canonical.getHand(), numBooks, numRuns, strategy).bases;
+            return canonical.isIdentity() ? bases : freeze(canonical.toOriginal(bases));
+        }
+        return getEntry(hand, numBooks, numRuns, strategy).bases;
+    }
+
+    /**
+     * Determines how many cards are missing to form the required number of books and runs
+     * from the optimal bases of the given list of cards.
+     *
+     * @param cards the list of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return the number of cards required to complete the required books / runs
+     */
+    public int numCardsMissing(List<Card> cards, int numBooks, int numRuns, Strategy strategy) {
+        return numCardsMissing(PackedHand.fromList(cards), numBooks, numRuns, strategy);
+    }
+
+    /**
+     * Determines how many cards are missing to form the required number of books and runs
+     * from the optimal bases of the given packed hand.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return the number of cards required to complete the required books / runs
+     */
+    public int numCardsMissing(PackedHand hand, int numBooks, int numRuns, Strategy strategy) {
+        if (strategy == Strategy.EXACT) {
+            hand = CanonicalHand.of(hand).getHand();
+        }
+        return getEntry(hand, numBooks, numRuns, strategy).numCardsMissing;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups which required a new evaluation.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the number of evaluations evicted to make room for new ones.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Returns the number of evaluations currently held.
+     *
+     * @return the number of cached evaluations
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Removes every evaluation from the cache. Counters are left unchanged. Evaluations
+     * inserted while the cache is being cleared may be kept.
+     */
+    public void clear() {
+        this.entries.clear();
+        for (int i = 0; i < this.clock.length(); i++) {
+            this.clock.set(i, null);
+        }
+    }
+
+    /**
+     * Retrieves the cached evaluation of the given hand, evaluating it first if needed.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @return the cached evaluation
+     */
+    private Entry getEntry(PackedHand hand, int numBooks, int numRuns, Strategy strategy) {
+        Key key = new Key(hand, numBooks, numRuns, strategy);
+        Entry entry = this.entries.get(key);
+        if (entry != null) {
+            this.hits.increment();
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry;
+        }
+        this.misses.increment();
+        Map<String, List<List<Card>>> bases = Algorithm.getOptimalBases(hand, numBooks, numRuns, strategy);
+        entry = new Entry(freeze(bases), Algorithm.numCardsMissing(bases, numBooks, numRuns));
+        return insert(key, entry);
+    }
+
+    /**
+     * Inserts a new evaluation, evicting an old one using the CLOCK algorithm if the
+     * cache is full. If another thread has already inserted an evaluation for the same
+     * key, that evaluation is kept and returned instead.
+     *
+     * @param key the key of the evaluation
+     * @param entry the evaluation
+     * @return the evaluation held by the cache for the given key
+     */
+    private Entry insert(Key key, Entry entry) {
+        Entry existing = this.entries.putIfAbsent(key, entry);
+        if (existing != null) {
+            return existing;
+        }
+        while (true) {
+            int slot = (this.clockHand.getAndIncrement() & Integer.MAX_VALUE) % this.clock.length();
+            Key victim = this.clock.get(slot);
+            if (victim == null) {
+                if (this.clock.compareAndSet(slot, null, key)) {
+                    return entry;
+                }
+                continue;
+            }
+            // Only the thread which claims a slot removes its key, so the entry is only
+            // missing if the cache was cleared
+            Entry victimEntry = this.entries.get(victim);
+            if (victimEntry != null && victimEntry.referenced) {
+                // Give recently used entries a second chance
+                victimEntry.referenced = false;
+            } else if (this.clock.compareAndSet(slot, victim, key)) {
+                if (victimEntry != null && this.entries.remove(victim, victimEntry)) {
+                    this.evictions.increment();
+                }
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Returns an unmodifiable deep copy of the given bases.
+     *
+     * @param bases the map between the Books / Runs and their bases
+     * @return an unmodifiable copy of the bases
+     */
+    private static Map<String, List<List<Card>>> freeze(Map<String, List<List<Card>>> bases) {
+        Map<String, List<List<Card>>> frozen = new TreeMap<>();
+        for (Map.Entry<String, List<List<Card>>> entry : bases.entrySet()) {
+            List<List<Card>> stackBases = new ArrayList<>(entry.getValue().size());
+            for (List<Card> basis : entry.getValue()) {
+                stackBases.add(List.copyOf(basis));
+            }
+            frozen.put(entry.getKey(), Collections.unmodifiableList(stackBases));
+        }
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    /**
+     * A cached evaluation.
+     */
+    private static class Entry {
+        private final Map<String, List<List<Card>>> bases;
+        private final int numCardsMissing;
+        private volatile boolean referenced;
+
+        private Entry(Map<String, List<List<Card>>> bases, int numCardsMissing) {
+            this.bases = bases;
+            this.numCardsMissing = numCardsMissing;
+            this.referenced = false;
+        }
+    }
+
+    /**
+     * The canonical signature of a hand evaluation: the packed counters of the hand,
+     * together with the contract and strategy.
+     */
+    private static class Key {
+        private final long[] words = new long[PackedHand.NUM_SUITS + 1];
+        private final int numBooks;
+        private final int numRuns;
+        private final Strategy strategy;
+        private final int hash;
+
+        private Key(PackedHand hand, int numBooks, int numRuns, Strategy strategy) {
+            int hash = 0;
+            for (int i = 0; i < this.words.length; i++) {
+                this.words[i] = hand.getWord(i);
+                hash = 31 * hash + Long.hashCode(this.words[i]);
+            }
+            this.numBooks = numBooks;
+            this.numRuns = numRuns;
+            this.strategy = strategy;
+            this.hash = 31 * (31 * (31 * hash + numBooks) + numRuns) + strategy.ordinal();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof Key) {
+                Key other = (Key) o;
+                return this.hash == other.hash && this.numBooks == other.numBooks && this.numRuns == other.numRuns
+                        && this.strategy == other.strategy && Arrays.equals(this.words, other.words);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
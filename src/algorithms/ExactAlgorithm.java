@@ -0,0 +1,539 @@
+package algorithms;
+
+import hand.Card;
+import hand.CardType;
+import hand.PackedHand;
+import util.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A class representing an algorithm which determines the bases that truly minimise the
+ * number of missing cards, using a branch-and-bound search over run windows.
+ *
+ * A run basis is any set of cards of one suit whose numbers lie within a window of
+ * MIN_RUN_CARDS consecutive numbers (an ace may sit at either end). Every basis is found
+ * by taking all remaining cards in such a window, since moving a card from a run to a
+ * book can never reduce the number of missing cards. Once the run windows are fixed, the
+ * best books are simply the largest stacks of equal card numbers that remain, so only
+ * run windows need to be searched. Jokers may fill any gap in any basis.
+ */
+public class ExactAlgorithm extends Algorithm {
+    private final static int TRAILING_ACE = 14;
+    private final static int LAST_WINDOW_START = TRAILING_ACE - MIN_RUN_CARDS + 1;
+    private final static int WINDOW_MASK = (1 << MIN_RUN_CARDS) - 1;
+    private final static CardType[] SUITS = {CardType.SPADE, CardType.CLUB, CardType.HEART, CardType.DIAMOND};
+    private final static int NUM_SUITS = PackedHand.NUM_SUITS;
+    private final static int NUM_RANKS = PackedHand.NUM_RANKS;
+    private final static int CHECK_INTERVAL = 64;
+
+    private final int numBooks;
+    private final int numRuns;
+    private final int[][] suitCounts = new int[NUM_SUITS][NUM_RANKS + 1];
+    private final int[] present = new int[NUM_SUITS];
+    private final int[] numCounts = new int[NUM_RANKS + 1];
+    // Number of complete books, and of card numbers with 0, 1 or 2 cards left over
+    private int numFull;
+    private int numCardsLeft;
+    private final int[] numLeftOver = new int[MIN_BOOK_CARDS];
+    private final int[] windows;
+    private int numWindows;
+    private final int[] chosen;
+    private final int[] bestChosen;
+    private int numBestChosen;
+    private int bestNumCards;
+    private int targetNumCards;
+    private final int maxNumCards;
+    // Budget of the search, checked every CHECK_INTERVAL nodes once set by searchWithin
+    private long deadline;
+    private long maxNodes;
+    private long numNodes;
+    private long nextCheck = Long.MAX_VALUE;
+    private boolean isStopped;
+
+    /**
+     * Prepares a search over the given packed hand.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     */
+    ExactAlgorithm(PackedHand hand, int numBooks, int numRuns) {
+        this.numBooks = numBooks;
+        this.numRuns = numRuns;
+        this.maxNumCards = MIN_BOOK_CARDS * numBooks + MIN_RUN_CARDS * numRuns;
+        this.chosen = new int[numRuns];
+        this.bestChosen = new int[numRuns];
+        this.windows = new int[NUM_SUITS * LAST_WINDOW_START];
+        for (int suit = 0; suit < NUM_SUITS; suit++) {
+            for (int cardNum = 1; cardNum <= NUM_RANKS; cardNum++) {
+                changeSuitCount(suit, cardNum, hand.count(cardNum, SUITS[suit]));
+            }
+        }
+        updateWindows();
+    }
+
+    /**
+     * Adds the given number of copies of a (non-joker) card to the hand being searched.
+     * A negative number removes copies instead.
+     *
+     * @param card the card
+     * @param delta the number of copies to add
+     */
+    void changeCount(Card card, int delta) {
+        if (changeSuitCount(card.getCardType().ordinal(), card.getCardNum(), delta)) {
+            // The candidate windows only depend on which cards are present
+            updateWindows();
+        }
+    }
+
+    /**
+     * Determines the greatest number of cards (excluding jokers) which bases can hold,
+     * when it is already known to be at least lowerBound and at most target. Both bounds
+     * are used to cut the search short, which makes this much faster than a full search
+     * when the answer is known to be one of a few values.
+     *
+     * @param lowerBound a number of cards that the bases are known to be able to hold
+     * @param target a number of cards that the bases are known not to be able to exceed
+     * @return the greatest number of cards the bases can hold
+     */
+    int numBasesCards(int lowerBound, int target) {
+        search(lowerBound, Math.min(target, this.maxNumCards));
+        return this.bestNumCards;
+    }
+
+    /**
+     * Removes the cards used by the best bases found by the last search from the given
+     * packed hand, which should hold the cards being searched.
+     *
+     * @param hand the packed hand of cards
+     */
+    void removeBasesCards(PackedHand hand) {
+        for (int i = 0; i < this.numBestChosen; i++) {
+            takeWindow(hand, this.bestChosen[i]);
+        }
+        // Remove complete books first, then pairs, then single cards
+        int booksLeft = this.numBooks;
+        for (int stackSize = MIN_BOOK_CARDS; stackSize > 0 && booksLeft > 0; stackSize--) {
+            for (int cardNum = 1; cardNum <= NUM_RANKS && booksLeft > 0; cardNum++) {
+                int num = hand.countNum(cardNum);
+                int numStacks = stackSize == MIN_BOOK_CARDS ? num / MIN_BOOK_CARDS
+                        : (num % MIN_BOOK_CARDS == stackSize ? 1 : 0);
+                for (; numStacks > 0 && booksLeft > 0; numStacks--, booksLeft--) {
+                    removeNum(hand, cardNum, stackSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the given number of cards with the given card number from the packed hand,
+     * from any suits.
+     *
+     * @param hand the packed hand of cards
+     * @param cardNum the card number
+     * @param numCards the number of cards to remove
+     */
+    private static void removeNum(PackedHand hand, int cardNum, int numCards) {
+        for (int suit = 0; suit < NUM_SUITS && numCards > 0; suit++) {
+            Card card = Card.fromOrdinal(Card.ordinal(cardNum, SUITS[suit]));
+            while (numCards > 0 && hand.remove(card)) {
+                numCards--;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the list of candidate run windows from the current card counts.
+     * A window whose first card number is missing is left out, since the window starting at
+     * its lowest card covers every card number it covers, and windows covering more card
+     * numbers are placed first, so good solutions are found early.
+     */
+    private void updateWindows() {
+        int count = 0;
+        for (int suit = 0; suit < NUM_SUITS; suit++) {
+            int present = this.present[suit];
+            for (int start = 1; start <= LAST_WINDOW_START; start++) {
+                int covered = present & WINDOW_MASK << start;
+                if (covered == 0 || ((covered & 1 << start) == 0 && start != LAST_WINDOW_START)) {
+                    continue;
+                }
+                // Insert in order of decreasing size
+                int size = Integer.bitCount(covered);
+                int i = count++;
+                while (i > 0 && windowSize(this.windows[i - 1]) < size) {
+                    this.windows[i] = this.windows[i - 1];
+                    i--;
+                }
+                this.windows[i] = suit << 4 | start;
+            }
+        }
+        this.numWindows = count;
+    }
+
+    /**
+     * Counts the card numbers the given window could currently take a card from.
+     *
+     * @param window the encoded window (suit << 4 | start)
+     * @return the number of cards the window could take
+     */
+    private int windowSize(int window) {
+        return Integer.bitCount(this.present[window >>> 4] & WINDOW_MASK << (window & 0xF));
+    }
+
+    /**
+     * Changes the number of cards of the given suit and card number, keeping the mask of
+     * present card numbers and the book counts up to date.
+     *
+     * @param suit the suit
+     * @param cardNum the card number
+     * @param delta the change in the number of cards
+     * @return true if the card number became present or absent. False otherwise.
+     */
+    private boolean changeSuitCount(int suit, int cardNum, int delta) {
+        int oldNum = this.suitCounts[suit][cardNum];
+        int newNum = oldNum + delta;
+        this.suitCounts[suit][cardNum] = newNum;
+        changeNumCount(cardNum, delta);
+        if ((oldNum == 0) == (newNum == 0)) {
+            return false;
+        }
+        // Bit i is set if card number i is present (with the ace at both 1 and 14)
+        int bits = cardNum == 1 ? 1 << 1 | 1 << TRAILING_ACE : 1 << cardNum;
+        this.present[suit] ^= bits;
+        return true;
+    }
+
+    /**
+     * Determines the bases which minimise the number of missing cards, based on the
+     * number of runs and/or books required.
+     *
+     * Exactly numBooks book bases and numRuns run bases are returned (some possibly empty),
+     * so that jokers can be distributed to any of them.
+     *
+     * @param cards the list of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @return a map between the Books / Runs and their optimal bases
+     */
+    public static Map<String, List<List<Card>>> getOptimalBases(List<Card> cards, int numBooks, int numRuns) {
+        return getOptimalBases(PackedHand.fromList(cards), numBooks, numRuns);
+    }
+
+    /**
+     * Determines the bases which minimise the number of missing cards from the given packed
+     * hand, based on the number of runs and/or books required.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @return a map between the Books / Runs and their optimal bases
+     */
+    public static Map<String, List<List<Card>>> getOptimalBases(PackedHand hand, int numBooks, int numRuns) {
+        if (Metrics.ENABLED) {
+            Metrics.recordBases(hand.size(), true);
+        }
+        ExactAlgorithm search = new ExactAlgorithm(hand, numBooks, numRuns);
+        search.search();
+        return search.getBestBases(hand);
+    }
+
+    /**
+     * Builds the bases found by the last search from the given packed hand, which should hold
+     * the cards searched, including jokers.
+     *
+     * @param hand the packed hand of cards
+     * @return a map between the Books / Runs and their bases
+     */
+    Map<String, List<List<Card>>> getBestBases(PackedHand hand) {
+        Map<String, List<List<Card>>> bases = new TreeMap<>();
+        PackedHand localHand = new PackedHand(hand);
+        List<List<Card>> runBases = new ArrayList<>();
+        for (int i = 0; i < this.numBestChosen; i++) {
+            runBases.add(takeWindow(localHand, this.bestChosen[i]));
+        }
+        while (runBases.size() < this.numRuns) {
+            runBases.add(new ArrayList<>());
+        }
+        sortStacks(runBases);
+        List<List<Card>> bookBases = BookAlgorithm.getBookBases(localHand, this.numBooks);
+        while (bookBases.size() < this.numBooks) {
+            bookBases.add(new ArrayList<>());
+        }
+        if (this.numBooks > 0 || this.numRuns == 0) {
+            bases.put("Books", bookBases);
+        }
+        if (this.numRuns > 0) {
+            bases.put("Runs", runBases);
+        }
+        // Distribute jokers (if needed)
+        addJokersToBases(bases, getJokers(hand));
+        return bases;
+    }
+
+    /**
+     * Runs the first search of this object within the given budget, stopping early once the
+     * deadline passes or the given number of nodes have been visited. The budget is checked every
+     * CHECK_INTERVAL nodes. The best bases found are kept either way.
+     *
+     * @param deadline the System.nanoTime() after which to stop
+     * @param maxNodes the number of nodes after which to stop
+     * @return true if the search finished, so the best bases found are optimal. False otherwise.
+     */
+    boolean searchWithin(long deadline, long maxNodes) {
+        this.deadline = deadline;
+        this.maxNodes = maxNodes;
+        this.nextCheck = Math.min(CHECK_INTERVAL, maxNodes);
+        search();
+        return !this.isStopped;
+    }
+
+    /**
+     * Returns the number of search nodes visited so far.
+     *
+     * @return the number of nodes
+     */
+    long getNumNodes() {
+        return this.numNodes;
+    }
+
+    /**
+     * Returns the greatest number of cards (excluding jokers) the bases found so far hold.
+     *
+     * @return the number of cards
+     */
+    int getBestNumCards() {
+        return this.bestNumCards;
+    }
+
+    /**
+     * Returns the number of cards the required books and runs hold when complete.
+     *
+     * @return the number of cards
+     */
+    int getMaxNumCards() {
+        return this.maxNumCards;
+    }
+
+    /**
+     * Determines the minimum number of cards missing to form the required number of books
+     * and runs from the given packed hand, including jokers. Equivalent to calling
+     * numCardsMissing on the result of getOptimalBases, without building any bases.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @return the minimum number of cards required to complete the books / runs
+     */
+    public static int numCardsMissing(PackedHand hand, int numBooks, int numRuns) {
+        ExactAlgorithm search = new ExactAlgorithm(hand, numBooks, numRuns);
+        search.search();
+        return Math.max(0, search.maxNumCards - search.bestNumCards - hand.numJokers());
+    }
+
+    /**
+     * Runs the branch-and-bound search, recording the best run windows found.
+     */
+    private void search() {
+        search(-1, this.maxNumCards);
+    }
+
+    /**
+     * Runs the branch-and-bound search, recording the best run windows found which hold
+     * more than lowerBound cards. The search stops once a solution holding target
+     * cards is found.
+     *
+     * @param lowerBound the number of cards which a solution must exceed to be recorded
+     * @param target the number of cards at which to stop searching
+     */
+    private void search(int lowerBound, int target) {
+        this.bestNumCards = lowerBound;
+        this.targetNumCards = target;
+        if (lowerBound < target) {
+            searchHelper(0, 0, 0);
+        }
+    }
+
+    /**
+     * Considers every way of choosing the remaining run windows from the given candidate
+     * onwards. Windows are chosen in candidate order, so each combination is visited once.
+     *
+     * @param firstWindow the index of the first candidate window which may be chosen
+     * @param numChosen the number of run windows chosen so far
+     * @param numRunCards the number of cards used by the chosen run windows
+     */
+    private void searchHelper(int firstWindow, int numChosen, int numRunCards) {
+        if (++this.numNodes >= this.nextCheck && isOutOfBudget()) {
+            this.isStopped = true;
+            return;
+        }
+        int numBookCards = bestBookCards(this.numFull, this.numLeftOver[2], this.numLeftOver[1],
+                this.numBooks);
+        if (numRunCards + numBookCards > this.bestNumCards) {
+            // Leaving the remaining runs empty is the best found so far
+            this.bestNumCards = numRunCards + numBookCards;
+            this.numBestChosen = numChosen;
+            System.arraycopy(this.chosen, 0, this.bestChosen, 0, numChosen);
+        }
+        int runsLeft = this.numRuns - numChosen;
+        if (runsLeft == 0 || this.bestNumCards >= this.targetNumCards
+                || numRunCards + MIN_RUN_CARDS * runsLeft + numBookCards <= this.bestNumCards) {
+            // No runs left to choose, or no way to improve on the best found so far
+            return;
+        }
+        // Each further window holds no more cards than the fullest window left
+        int upperBound = numRunCards + Math.min(runsLeft * maxWindowCards(firstWindow) + numBookCards,
+                this.numCardsLeft);
+        if (upperBound <= this.bestNumCards) {
+            return;
+        }
+        for (int i = firstWindow; i < this.numWindows; i++) {
+            int window = this.windows[i];
+            int taken = applyWindow(window);
+            if (taken != 0) {
+                this.chosen[numChosen] = window;
+                searchHelper(i, numChosen + 1, numRunCards + Integer.bitCount(taken));
+                undoWindow(window, taken);
+                if (this.bestNumCards >= this.targetNumCards || this.isStopped) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the search has run past its deadline or node limit, and if not, when
+     * to check next.
+     *
+     * @return true if the search should stop. False otherwise.
+     */
+    private boolean isOutOfBudget() {
+        if (this.numNodes >= this.maxNodes || System.nanoTime() - this.deadline >= 0) {
+            return true;
+        }
+        this.nextCheck = Math.min(this.numNodes + CHECK_INTERVAL, this.maxNodes);
+        return false;
+    }
+
+    /**
+     * Determines the greatest number of cards which any candidate window, from the given
+     * candidate onwards, could take from the counts.
+     *
+     * @param firstWindow the index of the first candidate window to consider
+     * @return the greatest number of cards a window could take
+     */
+    private int maxWindowCards(int firstWindow) {
+        int maxCards = 0;
+        for (int i = firstWindow; i < this.numWindows && maxCards < MIN_RUN_CARDS; i++) {
+            maxCards = Math.max(maxCards, windowSize(this.windows[i]));
+        }
+        return maxCards;
+    }
+
+    /**
+     * Takes one card of each number in the given window from the counts, if available.
+     *
+     * @param window the encoded window (suit << 4 | start)
+     * @return a bit mask of the window positions from which a card was taken
+     */
+    private int applyWindow(int window) {
+        int suit = window >>> 4;
+        int start = window & 0xF;
+        int taken = 0;
+        for (int j = 0; j < MIN_RUN_CARDS; j++) {
+            int cardNum = wrapAce(start + j);
+            if (this.suitCounts[suit][cardNum] > 0) {
+                changeSuitCount(suit, cardNum, -1);
+                taken |= 1 << j;
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Returns the cards taken by applyWindow to the counts.
+     *
+     * @param window the encoded window (suit << 4 | start)
+     * @param taken the bit mask returned by applyWindow
+     */
+    private void undoWindow(int window, int taken) {
+        int suit = window >>> 4;
+        int start = window & 0xF;
+        for (int j = 0; j < MIN_RUN_CARDS; j++) {
+            if ((taken & 1 << j) != 0) {
+                changeSuitCount(suit, wrapAce(start + j), 1);
+            }
+        }
+    }
+
+    /**
+     * Removes one card of each number in the given window from the packed hand, if
+     * available, and returns the removed cards as a basis.
+     *
+     * @param hand the packed hand of cards
+     * @param window the encoded window (suit << 4 | start)
+     * @return the run basis
+     */
+    private static List<Card> takeWindow(PackedHand hand, int window) {
+        CardType suit = SUITS[window >>> 4];
+        int start = window & 0xF;
+        List<Card> basis = new ArrayList<>(MIN_RUN_CARDS);
+        for (int j = 0; j < MIN_RUN_CARDS; j++) {
+            Card card = Card.fromOrdinal(Card.ordinal(wrapAce(start + j), suit));
+            if (hand.remove(card)) {
+                basis.add(card);
+            }
+        }
+        return basis;
+    }
+
+    /**
+     * Changes the number of cards of the given card number, keeping count of how many
+     * complete books and left over cards can be formed.
+     *
+     * @param cardNum the card number
+     * @param delta the change in the number of cards
+     */
+    private void changeNumCount(int cardNum, int delta) {
+        this.numCardsLeft += delta;
+        int oldNum = this.numCounts[cardNum];
+        int newNum = oldNum + delta;
+        this.numCounts[cardNum] = newNum;
+        this.numFull += newNum / MIN_BOOK_CARDS - oldNum / MIN_BOOK_CARDS;
+        this.numLeftOver[oldNum % MIN_BOOK_CARDS]--;
+        this.numLeftOver[newNum % MIN_BOOK_CARDS]++;
+    }
+
+    /**
+     * Determines how many cards the best numBooks book bases can hold, given how many
+     * complete books, pairs and single cards can be formed.
+     *
+     * @param numFull the number of complete books which can be formed
+     * @param numPairs the number of card numbers with a pair left over
+     * @param numSingles the number of card numbers with a single card left over
+     * @param numBooks the number of required books
+     * @return the number of cards in the best book bases
+     */
+    static int bestBookCards(int numFull, int numPairs, int numSingles, int numBooks) {
+        if (numFull >= numBooks) {
+            return MIN_BOOK_CARDS * numBooks;
+        }
+        int booksLeft = numBooks - numFull;
+        int pairsUsed = Math.min(booksLeft, numPairs);
+        int singlesUsed = Math.min(booksLeft - pairsUsed, numSingles);
+        return MIN_BOOK_CARDS * numFull + 2 * pairsUsed + singlesUsed;
+    }
+
+    /**
+     * Maps a trailing ace to the card number of an ace.
+     *
+     * @param cardNum the card number
+     * @return 1 if cardNum is a trailing ace. Otherwise, cardNum.
+     */
+    private static int wrapAce(int cardNum) {
+        return cardNum == TRAILING_ACE ? 1 : cardNum;
+    }
+}
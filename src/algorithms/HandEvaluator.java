@@ -0,0 +1,359 @@
+package algorithms;
+
+import hand.Card;
+import hand.PackedHand;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the analysis of a hand of cards, and answers how many cards would be missing
+ * if a single card were added to, or removed from, the hand, without repeating the
+ * full analysis.
+ *
+ * Under the EXACT strategy, adding a card can reduce the number of missing cards by at
+ * most one, and removing a card can increase it by at most one. For books alone, only
+ * the counts of the affected card number are recomputed. Otherwise, a card which is not
+ * used by the current bases can be removed for free, and every other question is answered
+ * by a search which stops as soon as the one possible improvement is found. Adding or
+ * removing a card updates the analysis with the same kind of search, and the cards used
+ * by the bases are only found again when the bases improve.
+ *
+ * Under the GREEDY strategy, the hand is changed in place and re-evaluated greedily.
+ */
+public class HandEvaluator extends Algorithm {
+    private final static int JOKER_NUM = 14;
+
+    private final PackedHand hand;
+    private final int numBooks;
+    private final int numRuns;
+    private final Strategy strategy;
+    private final int numCardsNeeded;
+    private final PackedHand unusedCards;
+    private ExactAlgorithm search;
+    private int numBasesCards;
+    private int numCardsMissing;
+    // Book counts, used when only books are required
+    private final int[] numCounts = new int[PackedHand.NUM_RANKS + 1];
+    private int numFull;
+    private int numPairs;
+    private int numSingles;
+
+    /**
+     * Analyses the given hand of cards.
+     *
+     * @param hand the packed hand of cards (which is copied)
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     */
+    public HandEvaluator(PackedHand hand, int numBooks, int numRuns, Strategy strategy) {
+        this.hand = new PackedHand(hand);
+        this.numBooks = numBooks;
+        this.numRuns = numRuns;
+        this.strategy = strategy;
+        this.numCardsNeeded = MIN_BOOK_CARDS * numBooks + MIN_RUN_CARDS * numRuns;
+        this.unusedCards = new PackedHand();
+        analyse();
+    }
+
+    /**
+     * Analyses the given list of cards.
+     *
+     * @param cards the list of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     */
+    public HandEvaluator(List<Card> cards, int numBooks, int numRuns, Strategy strategy) {
+        this(PackedHand.fromList(cards), numBooks, numRuns, strategy);
+    }
+
+    /**
+     * Returns a copy of the hand being analysed.
+     *
+     * @return the packed hand of cards
+     */
+    public PackedHand getHand() {
+        return new PackedHand(this.hand);
+    }
+
+    /**
+     * Returns how many copies of the card with the given ordinal are in the hand.
+     *
+     * @param ordinal the ordinal of the card
+     * @return the number of copies of the card
+     */
+    public int count(int ordinal) {
+        return this.hand.count(ordinal);
+    }
+
+    /**
+     * Returns the number of required books.
+     *
+     * @return the number of books
+     */
+    public int getNumBooks() {
+        return this.numBooks;
+    }
+
+    /**
+     * Returns the number of required runs.
+     *
+     * @return the number of runs
+     */
+    public int getNumRuns() {
+        return this.numRuns;
+    }
+
+    /**
+     * Returns the strategy used to determine the bases.
+     *
+     * @return the strategy
+     */
+    public Strategy getStrategy() {
+        return this.strategy;
+    }
+
+    /**
+     * Returns how many cards are missing to form the required books and runs from the
+     * current hand.
+     *
+     * @return the number of cards missing
+     */
+    public int numCardsMissing() {
+        return this.numCardsMissing;
+    }
+
+    /**
+     * Returns how many cards would be missing if the given card were added to the hand.
+     *
+     * @param card the card to add
+     * @return the number of cards missing after adding the card
+     */
+    public int numCardsMissingWith(Card card) {
+        if (this.strategy == Strategy.GREEDY) {
+            this.hand.add(card);
+            int numMissing = greedyNumCardsMissing();
+            this.hand.remove(card);
+            return numMissing;
+        }
+        int numJokers = this.hand.numJokers();
+        if (this.numCardsMissing == 0) {
+            return 0;
+        }
+        if (card.getCardNum() == JOKER_NUM) {
+            // A joker can fill any gap
+            return this.numCardsMissing - 1;
+        }
+        int newNumBasesCards;
+        if (this.numRuns == 0) {
+            int num = this.numCounts[card.getCardNum()];
+            newNumBasesCards = bookCardsAfterChange(num, num + 1);
+        } else {
+            this.search.changeCount(card, 1);
+            newNumBasesCards = this.search.numBasesCards(this.numBasesCards, this.numBasesCards + 1);
+            this.search.changeCount(card, -1);
+        }
+        return Math.max(0, this.numCardsNeeded - newNumBasesCards - numJokers);
+    }
+
+    /**
+     * Returns how many cards would be missing if the given card were removed from the hand.
+     * If the hand does not contain the card, the current number of missing cards is returned.
+     *
+     * @param card the card to remove
+     * @return the number of cards missing after removing the card
+     */
+    public int numCardsMissingWithout(Card card) {
+        if (this.hand.count(card) == 0) {
+            return this.numCardsMissing;
+        }
+        if (this.strategy == Strategy.GREEDY) {
+            this.hand.remove(card);
+            int numMissing = greedyNumCardsMissing();
+            this.hand.add(card);
+            return numMissing;
+        }
+        int numJokers = this.hand.numJokers();
+        if (card.getCardNum() == JOKER_NUM) {
+            return Math.max(0, this.numCardsNeeded - this.numBasesCards - numJokers + 1);
+        }
+        if (this.unusedCards.count(card) > 0) {
+            // The card is not part of any basis
+            return this.numCardsMissing;
+        }
+        int newNumBasesCards;
+        if (this.numRuns == 0) {
+            int num = this.numCounts[card.getCardNum()];
+            newNumBasesCards = bookCardsAfterChange(num, num - 1);
+        } else {
+            this.search.changeCount(card, -1);
+            newNumBasesCards = this.search.numBasesCards(this.numBasesCards - 1, this.numBasesCards);
+            this.search.changeCount(card, 1);
+        }
+        return Math.max(0, this.numCardsNeeded - newNumBasesCards - numJokers);
+    }
+
+    /**
+     * Adds the given card to the hand, and updates the analysis.
+     *
+     * @param card the card to add
+     */
+    public void add(Card card) {
+        this.hand.add(card);
+        update(card, 1);
+    }
+
+    /**
+     * Removes the given card from the hand, if present, and updates the analysis.
+     *
+     * @param card the card to remove
+     * @return true if the card was removed. False otherwise.
+     */
+    public boolean remove(Card card) {
+        if (!this.hand.remove(card)) {
+            return false;
+        }
+        update(card, -1);
+        return true;
+    }
+
+    /**
+     * Updates the analysis after one copy of the given card has been added to (delta == 1) or
+     * removed from (delta == -1) the hand.
+     *
+     * The old bases stay valid after the change, holding one card fewer if a used card was
+     * removed, so under the EXACT strategy the new bases hold either that many cards or one
+     * more. A single search bounded by those two values decides which, and the used cards are
+     * only found again if it finds better bases.
+     *
+     * @param card the card added or removed
+     * @param delta the change to the number of copies of the card
+     */
+    private void update(Card card, int delta) {
+        if (this.strategy == Strategy.GREEDY) {
+            this.numCardsMissing = greedyNumCardsMissing();
+            return;
+        }
+        if (card.getCardNum() == JOKER_NUM) {
+            // Jokers are not part of the bases
+            if (delta > 0) {
+                this.unusedCards.add(card);
+            } else {
+                this.unusedCards.remove(card);
+            }
+        } else if (delta < 0 && this.unusedCards.remove(card)) {
+            // The card was not part of any basis, so the bases are unchanged
+            changeCount(card, delta);
+        } else {
+            int oldNumBasesCards = delta > 0 ? this.numBasesCards : this.numBasesCards - 1;
+            changeCount(card, delta);
+            int newNumBasesCards;
+            if (this.numRuns == 0) {
+                newNumBasesCards = ExactAlgorithm.bestBookCards(this.numFull, this.numPairs, this.numSingles,
+                        this.numBooks);
+            } else {
+                newNumBasesCards = this.search.numBasesCards(oldNumBasesCards, oldNumBasesCards + 1);
+            }
+            if (newNumBasesCards == oldNumBasesCards) {
+                if (delta > 0) {
+                    this.unusedCards.add(card);
+                }
+                this.numBasesCards = newNumBasesCards;
+            } else if (this.numRuns == 0) {
+                analyse();
+                return;
+            } else {
+                // The last search found the new bases
+                this.numBasesCards = newNumBasesCards;
+                this.unusedCards.set(this.hand);
+                this.search.removeBasesCards(this.unusedCards);
+            }
+        }
+        this.numCardsMissing = Math.max(0, this.numCardsNeeded - this.numBasesCards - this.hand.numJokers());
+    }
+
+    /**
+     * Changes the number of copies of a (non-joker) card held by the search, or by the book
+     * counts when only books are required.
+     *
+     * @param card the card
+     * @param delta the change to the number of copies of the card
+     */
+    private void changeCount(Card card, int delta) {
+        if (this.numRuns == 0) {
+            setNumCount(card.getCardNum(), this.numCounts[card.getCardNum()] + delta);
+        } else {
+            this.search.changeCount(card, delta);
+        }
+    }
+
+    /**
+     * Determines the bases of the current hand, and records which cards they use.
+     */
+    private void analyse() {
+        if (this.strategy == Strategy.GREEDY) {
+            this.numCardsMissing = greedyNumCardsMissing();
+            return;
+        }
+        ExactAlgorithm search = new ExactAlgorithm(this.hand, this.numBooks, this.numRuns);
+        this.numBasesCards = search.numBasesCards(-1, this.numCardsNeeded);
+        this.unusedCards.set(this.hand);
+        search.removeBasesCards(this.unusedCards);
+        this.numCardsMissing = Math.max(0, this.numCardsNeeded - this.numBasesCards - this.hand.numJokers());
+        if (this.numRuns > 0) {
+            // The search is left as it was, ready to answer further questions
+            this.search = search;
+        } else {
+            Arrays.fill(this.numCounts, 0);
+            this.numFull = 0;
+            this.numPairs = 0;
+            this.numSingles = 0;
+            for (int cardNum = 1; cardNum <= PackedHand.NUM_RANKS; cardNum++) {
+                setNumCount(cardNum, this.hand.countNum(cardNum));
+            }
+        }
+    }
+
+    /**
+     * Sets the number of cards of the given card number in the book counts.
+     *
+     * @param cardNum the card number
+     * @param num the new number of cards
+     */
+    private void setNumCount(int cardNum, int num) {
+        int oldNum = this.numCounts[cardNum];
+        this.numFull += num / MIN_BOOK_CARDS - oldNum / MIN_BOOK_CARDS;
+        this.numPairs += (num % MIN_BOOK_CARDS == 2 ? 1 : 0) - (oldNum % MIN_BOOK_CARDS == 2 ? 1 : 0);
+        this.numSingles += (num % MIN_BOOK_CARDS == 1 ? 1 : 0) - (oldNum % MIN_BOOK_CARDS == 1 ? 1 : 0);
+        this.numCounts[cardNum] = num;
+    }
+
+    /**
+     * Determines how many cards the best book bases would hold if the number of cards of
+     * one card number changed from oldNum to newNum.
+     *
+     * @param oldNum the current number of cards of the card number
+     * @param newNum the new number of cards of the card number
+     * @return the number of cards in the best book bases after the change
+     */
+    private int bookCardsAfterChange(int oldNum, int newNum) {
+        int full = this.numFull - oldNum / MIN_BOOK_CARDS + newNum / MIN_BOOK_CARDS;
+        int pairs = this.numPairs - (oldNum % MIN_BOOK_CARDS == 2 ? 1 : 0)
+                + (newNum % MIN_BOOK_CARDS == 2 ? 1 : 0);
+        int singles = this.numSingles - (oldNum % MIN_BOOK_CARDS == 1 ? 1 : 0)
+                + (newNum % MIN_BOOK_CARDS == 1 ? 1 : 0);
+        return ExactAlgorithm.bestBookCards(full, pairs, singles, this.numBooks);
+    }
+
+    /**
+     * Evaluates the current hand greedily.
+     *
+     * @return the number of cards missing
+     */
+    private int greedyNumCardsMissing() {
+        return numCardsMissing(getOptimalBases(this.hand, this.numBooks, this.numRuns),
+                this.numBooks, this.numRuns);
+    }
+}
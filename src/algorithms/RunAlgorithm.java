@@ -3,6 +3,8 @@ package algorithms;
 import hand.Card;
 import hand.CardType;
 import hand.Deck;
+import hand.ImmutableHand;
+import hand.PackedHand;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +16,19 @@ import java.util.Map;
 public class RunAlgorithm extends Algorithm {
     private final static int TRAILING_ACE = 14;
     private final static int MAX_CARDS_TO_SIDE = 3;
+    private final static int JOKER_NUM = 14;
+    private final static int NUM_SUITS = PackedHand.NUM_SUITS;
+    private final static int WINDOW_MASK = (1 << MIN_RUN_CARDS) - 1;
+    private final static int NO_BASIS = -1;
+    private final static CardType[] SUITS = Card.getSuits().toArray(new CardType[0]);
+    private final static CardType[] CARD_TYPES = CardType.values();
+    private final static int[] CARD_SCORES = new int[TRAILING_ACE];
+
+    static {
+        for (int cardNum = 1; cardNum < TRAILING_ACE; cardNum++) {
+            CARD_SCORES[cardNum] = Card.CARD_SCORES.get(cardNum);
+        }
+    }
 
     /**
      * Determines the best way to form runs from the given cards,
@@ -26,25 +41,349 @@ public class RunAlgorithm extends Algorithm {
      * @return a list containing the run bases
      */
     public static List<List<Card>> getRunBases(List<Card> cards, int numRuns) {
-        List<List<Card>> stacks = new ArrayList<>();
-        // Consider each suit to find possible bases
-        for (CardType suit : Card.getSuits()) {
-            Map<Integer, List<Card>> cardMap = getCardFreqMap(cards, suit);
+        int[][] suitCounts = new int[NUM_SUITS][TRAILING_ACE];
+        for (Card card : cards) {
+            if (card.getCardNum() != JOKER_NUM) {
+                suitCounts[card.getCardType().ordinal()][card.getCardNum()]++;
+            }
+        }
+        return getRunBases(suitCounts, cards.size(), numRuns);
+    }
+
+    /**
+     * Determines the best way to form runs from the given packed hand, based on the number
+     * of runs required. Produces the same bases as getRunBases(hand.toList(), numRuns).
+     *
+     * @param hand the packed hand of cards
+     * @param numRuns the number of required runs
+     * @return a list containing the run bases
+     */
+    public static List<List<Card>> getRunBases(PackedHand hand, int numRuns) {
+        int[][] suitCounts = new int[NUM_SUITS][TRAILING_ACE];
+        for (CardType suit : SUITS) {
+            for (int cardNum = 1; cardNum < TRAILING_ACE; cardNum++) {
+                suitCounts[suit.ordinal()][cardNum] = hand.count(cardNum, suit);
+            }
+        }
+        return getRunBases(suitCounts, hand.size(), numRuns);
+    }
+
+    /**
+     * Determines the best way to form runs from the given immutable hand, as per
+     * getRunBases(PackedHand, numRuns).
+     *
+     * @param hand the immutable hand of cards
+     * @param numRuns the number of required runs
+     * @return a list containing the run bases
+     */
+    public static List<List<Card>> getRunBases(ImmutableHand hand, int numRuns) {
+        return getRunBases(hand.toPackedHand(), numRuns);
+    }
+
+    /**
+     * Determines the best run bases from the given card counts.
+     *
+     * The best BASES_PER_SUIT bases of each suit are looked up in a RunTable (or computed on
+     * the fly if no table covers the counts), and merged in the order sortStacks would place
+     * them. Only if more runs are required is a full search made.
+     *
+     * @param suitCounts the card counts of each suit, indexed by suit ordinal then card number
+     * @param numCards an upper bound on the number of bases which can be found
+     * @param numRuns the number of required runs
+     * @return a list containing the run bases
+     */
+    private static List<List<Card>> getRunBases(int[][] suitCounts, int numCards, int numRuns) {
+        if (numRuns > RunTable.BASES_PER_SUIT) {
+            return searchRunBases(suitCounts, numCards, numRuns);
+        }
+        int[] entries = new int[NUM_SUITS];
+        int[] numTaken = new int[NUM_SUITS];
+        for (int i = 0; i < NUM_SUITS; i++) {
+            entries[i] = RunTable.lookup(suitCounts[SUITS[i].ordinal()]);
+        }
+        List<List<Card>> bases = new ArrayList<>();
+        for (int i = 0; i < numRuns; i++) {
+            // Each suit's bases are already in order, so only the next base of each suit competes.
+            // Ties go to the suit searched first.
+            int best = -1;
+            int bestBasis = NO_BASIS;
+            for (int j = 0; j < NUM_SUITS; j++) {
+                int basis = entryBasis(entries[j], numTaken[j], SUITS[j].ordinal());
+                if (basis != NO_BASIS && (best == -1 || compareBases(basis, bestBasis) > 0)) {
+                    best = j;
+                    bestBasis = basis;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            bases.add(toBasis(bestBasis));
+            numTaken[best]++;
+        }
+        return bases;
+    }
+
+    /**
+     * Determines the best run bases from the given card counts. Bases are searched for suit by
+     * suit, as encoded windows, and only the chosen bases are turned into lists of cards.
+     * The counts are used up by the search.
+     *
+     * @param suitCounts the card counts of each suit, indexed by suit ordinal then card number
+     * @param numCards an upper bound on the number of bases which can be found
+     * @param numRuns the number of required runs
+     * @return a list containing the run bases
+     */
+    private static List<List<Card>> searchRunBases(int[][] suitCounts, int numCards, int numRuns) {
+        int[] found = new int[numCards];
+        int numFound = 0;
+        for (CardType suit : SUITS) {
             // Search for bases, starting with four adjacent cards and ending with only 1
             for (int numAdjCards = MIN_RUN_CARDS; numAdjCards > 0; numAdjCards--) {
-                stacks.addAll(adjCardsSearch(cardMap, numAdjCards));
+                numFound = windowSearch(suitCounts[suit.ordinal()], suit.ordinal(), numAdjCards, found, numFound);
             }
         }
-        // Sort stacks for optimality
-        sortStacks(stacks);
-        // Extract stacks from the front of the list until we have the required number of
-        // runs (or until no more can be extracted)
+        // Pick the best bases in the order sortStacks would place them: larger bases first,
+        // then higher scoring bases, then bases found earlier
         List<List<Card>> bases = new ArrayList<>();
-        for (int i = 0; i < Math.min(stacks.size(), numRuns); i++) {
-            bases.add(stacks.get(i));
+        for (int i = 0; i < Math.min(numFound, numRuns); i++) {
+            int best = -1;
+            for (int j = 0; j < numFound; j++) {
+                if (found[j] != NO_BASIS && (best == -1 || compareBases(found[j], found[best]) > 0)) {
+                    best = j;
+                }
+            }
+            bases.add(toBasis(found[best]));
+            found[best] = NO_BASIS;
         }
         return bases;
     }
+
+    /**
+     * Determines the best BASES_PER_SUIT run bases of a single suit, in the order sortStacks
+     * would place them, packed one byte per basis into an int (the first basis in the lowest
+     * byte). Each byte holds the window start plus 2 in its upper 4 bits and the bit mask of
+     * window positions in the basis in its lower 4 bits. A zero byte means no further bases.
+     *
+     * @param cardCounts the card counts of the suit, indexed by card number (not modified)
+     * @return the packed bases
+     */
+    public static int suitEntry(int[] cardCounts) {
+        int[] counts = new int[TRAILING_ACE];
+        int numCards = 0;
+        for (int cardNum = 1; cardNum < TRAILING_ACE; cardNum++) {
+            counts[cardNum] = cardCounts[cardNum];
+            numCards += cardCounts[cardNum];
+        }
+        int[] found = new int[numCards];
+        int numFound = 0;
+        for (int numAdjCards = MIN_RUN_CARDS; numAdjCards > 0; numAdjCards--) {
+            numFound = windowSearch(counts, 0, numAdjCards, found, numFound);
+        }
+        int entry = 0;
+        for (int i = 0; i < Math.min(numFound, RunTable.BASES_PER_SUIT); i++) {
+            int best = -1;
+            for (int j = 0; j < numFound; j++) {
+                if (found[j] != NO_BASIS && (best == -1 || compareBases(found[j], found[best]) > 0)) {
+                    best = j;
+                }
+            }
+            int start = (found[best] >>> 4 & 0x1F) - MAX_CARDS_TO_SIDE;
+            int taken = found[best] & WINDOW_MASK;
+            entry |= ((start + 2) << 4 | taken) << (8 * i);
+            found[best] = NO_BASIS;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the given basis of a packed suit entry as an encoded basis.
+     *
+     * @param entry the packed bases of the suit, as returned by suitEntry
+     * @param index the index of the basis within the entry
+     * @param suit the ordinal of the suit
+     * @return the encoded basis, or NO_BASIS if there is none
+     */
+    private static int entryBasis(int entry, int index, int suit) {
+        if (index >= RunTable.BASES_PER_SUIT) {
+            return NO_BASIS;
+        }
+        int basis = entry >>> (8 * index) & 0xFF;
+        if (basis == 0) {
+            return NO_BASIS;
+        }
+        return encodeBasis(suit, (basis >>> 4) - 2, basis & WINDOW_MASK);
+    }
+
+    /**
+     * Adds every run basis containing the given number of adjacent cards to the given list.
+     * Behaves like adjCardsSearch(Map, int), but on the card counts of a single suit, where
+     * cardCounts[cardNum] is the number of cards with that number. Bases are removed from
+     * the counts as they are found.
+     *
+     * @param cardCounts the card counts of the suit, indexed by card number
+     * @param suit the suit of the cards
+     * @param numAdjCards the number of adjacent cards to search for
+     * @param bases the list to which found bases are added
+     */
+    public static void adjCardsSearch(int[] cardCounts, CardType suit, int numAdjCards, List<List<Card>> bases) {
+        int numCards = 0;
+        for (int cardNum = 1; cardNum < TRAILING_ACE; cardNum++) {
+            numCards += cardCounts[cardNum];
+        }
+        int[] found = new int[numCards];
+        int numFound = windowSearch(cardCounts, suit.ordinal(), numAdjCards, found, 0);
+        for (int i = 0; i < numFound; i++) {
+            bases.add(toBasis(found[i]));
+        }
+    }
+
+    /**
+     * Finds every run basis containing the given number of adjacent cards in one suit, as
+     * adjCardsSearch(Map, int) does, without allocating.
+     *
+     * The card numbers present are kept as a bit mask, offset so that windows may start up to
+     * MAX_CARDS_TO_SIDE places below the ace, with the ace present at both ends. Each window
+     * of MIN_RUN_CARDS card numbers is then counted with a single bitCount as it slides past a
+     * card. Found bases are removed from the counts, and recorded as encoded windows (see
+     * encodeBasis).
+     *
+     * @param cardCounts the card counts of the suit, indexed by card number
+     * @param suit the ordinal of the suit
+     * @param numAdjCards the number of adjacent cards to search for
+     * @param found the array in which encoded bases are recorded
+     * @param numFound the number of bases already recorded
+     * @return the number of bases recorded, including those already recorded
+     */
+    public static int windowSearch(int[] cardCounts, int suit, int numAdjCards, int[] found, int numFound) {
+        int present = 0;
+        for (int cardNum = 1; cardNum < TRAILING_ACE; cardNum++) {
+            if (cardCounts[cardNum] != 0) {
+                present |= positionBits(cardNum);
+            }
+        }
+        boolean basisFound = true;
+        // Keep searching through card numbers until we can no longer find any valid bases
+        while (basisFound) {
+            basisFound = false;
+            for (int cardNum = 1; cardNum < TRAILING_ACE; cardNum++) {
+                if (cardCounts[cardNum] == 0) {
+                    continue;
+                }
+                // Slide a window over the card, keeping the first of the fullest windows
+                int start = cardNum - MAX_CARDS_TO_SIDE;
+                int maxAdjCards = -1;
+                for (int i = cardNum - MAX_CARDS_TO_SIDE; i <= cardNum; i++) {
+                    int numCards = Integer.bitCount(present & WINDOW_MASK << (i + MAX_CARDS_TO_SIDE));
+                    if (maxAdjCards < numCards) {
+                        maxAdjCards = numCards;
+                        start = i;
+                    }
+                }
+                if (maxAdjCards == numAdjCards) {
+                    // Found a valid basis. Remove its cards from the counts.
+                    basisFound = true;
+                    int taken = present >>> (start + MAX_CARDS_TO_SIDE) & WINDOW_MASK;
+                    found[numFound++] = encodeBasis(suit, start, taken);
+                    for (int j = 0; j < MIN_RUN_CARDS; j++) {
+                        if ((taken & 1 << j) != 0) {
+                            int currentCardNum = wrapAce(start + j);
+                            if (--cardCounts[currentCardNum] == 0) {
+                                present &= ~positionBits(currentCardNum);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return numFound;
+    }
+
+    /**
+     * Returns the bits at which the given card number is present in the mask used by
+     * windowSearch. An ace is present both below the two and above the king.
+     *
+     * @param cardNum the card number
+     * @return the bits of the card number
+     */
+    private static int positionBits(int cardNum) {
+        int bits = 1 << (cardNum + MAX_CARDS_TO_SIDE);
+        return cardNum == 1 ? bits | 1 << (TRAILING_ACE + MAX_CARDS_TO_SIDE) : bits;
+    }
+
+    /**
+     * Encodes a run basis found by windowSearch as suit << 9 | (start + 3) << 4 | taken,
+     * where taken has bit j set if the card at start + j is in the basis.
+     *
+     * @param suit the ordinal of the suit
+     * @param start the first card number of the window (possibly below the ace)
+     * @param taken the bit mask of window positions in the basis
+     * @return the encoded basis
+     */
+    private static int encodeBasis(int suit, int start, int taken) {
+        return suit << 9 | (start + MAX_CARDS_TO_SIDE) << 4 | taken;
+    }
+
+    /**
+     * Compares two encoded bases as sortStacks does: by number of cards, then by score.
+     *
+     * @param basisOne the first encoded basis
+     * @param basisTwo the second encoded basis
+     * @return a positive number if the first basis is better, negative if worse, else 0
+     */
+    private static int compareBases(int basisOne, int basisTwo) {
+        int sizeOne = Integer.bitCount(basisOne & WINDOW_MASK);
+        int sizeTwo = Integer.bitCount(basisTwo & WINDOW_MASK);
+        if (sizeOne != sizeTwo) {
+            return Integer.compare(sizeOne, sizeTwo);
+        }
+        return Integer.compare(basisScore(basisOne), basisScore(basisTwo));
+    }
+
+    /**
+     * Determines the score of the cards in an encoded basis.
+     *
+     * @param basis the encoded basis
+     * @return the score of the basis
+     */
+    private static int basisScore(int basis) {
+        int start = (basis >>> 4 & 0x1F) - MAX_CARDS_TO_SIDE;
+        int score = 0;
+        for (int j = 0; j < MIN_RUN_CARDS; j++) {
+            if ((basis & 1 << j) != 0) {
+                score += CARD_SCORES[wrapAce(start + j)];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Returns the cards of an encoded basis, in window order.
+     *
+     * @param basis the encoded basis
+     * @return the run basis
+     */
+    private static List<Card> toBasis(int basis) {
+        CardType suit = CARD_TYPES[basis >>> 9];
+        int start = (basis >>> 4 & 0x1F) - MAX_CARDS_TO_SIDE;
+        List<Card> cards = new ArrayList<>(MIN_RUN_CARDS);
+        for (int j = 0; j < MIN_RUN_CARDS; j++) {
+            if ((basis & 1 << j) != 0) {
+                cards.add(Card.fromOrdinal(Card.ordinal(wrapAce(start + j), suit)));
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * Maps a trailing ace to the card number of an ace.
+     *
+     * @param cardNum the card number
+     * @return 1 if cardNum is a trailing ace. Otherwise, cardNum.
+     */
+    private static int wrapAce(int cardNum) {
+        return cardNum == TRAILING_ACE ? 1 : cardNum;
+    }
+
     /**
      * Returns a list of possible run bases containing the given number of adjacent cards.
      * Each time a basis is found, those cards are removed from the map before any other
@@ -144,6 +483,44 @@ public class RunAlgorithm extends Algorithm {
         return Math.max(0, numCardsMissing);
     }
 
+    /**
+     * Determine how many more cards are needed to form the required number of runs
+     * given the current packed hand and bases. Choice to include jokers or not.
+     *
+     * @param hand the packed hand of cards
+     * @param bases the run bases
+     * @param numRuns the number of runs required
+     * @param jokers true if jokers should be included. False otherwise.
+     * @return the number of cards missing to form desired runs
+     */
+    public static int numCardsMissing(PackedHand hand, List<List<Card>> bases, int numRuns, boolean jokers) {
+        int numJokers = jokers ? hand.numJokers() : 0;
+        int numBasesCards = 0;
+        for (List<Card> basis : bases) {
+            numBasesCards += basis.size();
+        }
+        return Math.max(0, MIN_RUN_CARDS * numRuns - numBasesCards - numJokers);
+    }
+
+    /**
+     * Determine how many more cards are needed to form the required number of runs
+     * given the current immutable hand and bases. Choice to include jokers or not.
+     *
+     * @param hand the immutable hand of cards
+     * @param bases the run bases
+     * @param numRuns the number of runs required
+     * @param jokers true if jokers should be included. False otherwise.
+     * @return the number of cards missing to form desired runs
+     */
+    public static int numCardsMissing(ImmutableHand hand, List<List<Card>> bases, int numRuns, boolean jokers) {
+        int numJokers = jokers ? hand.numJokers() : 0;
+        int numBasesCards = 0;
+        for (List<Card> basis : bases) {
+            numBasesCards += basis.size();
+        }
+        return Math.max(0, MIN_RUN_CARDS * numRuns - numBasesCards - numJokers);
+    }
+
     /**
      * Removes the given list of cards from the map.
      *
@@ -153,7 +530,13 @@ public class RunAlgorithm extends Algorithm {
     public static void removeCardsFromMap(Map<Integer, List<Card>> cardMap, List<Card> cards) {
         for (Card card : cards) {
             // Remove card from map
-            cardMap.get(card.getCardNum()).remove(card);
+            List<Card> cardsList = cardMap.get(card.getCardNum());
+            if (!cardsList.isEmpty() && cardsList.get(0) == card) {
+                // Bases are built from the first card of each list, so try that one first
+                cardsList.remove(0);
+            } else {
+                cardsList.remove(card);
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,256 @@
+package algorithms;
+
+import hand.PackedHand;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A precomputed table of the best run bases of a single suit, for every vector of card counts
+ * with at most numDecks copies of each card number.
+ *
+ * Run bases only depend on the card counts of each suit, so RunAlgorithm looks up the best
+ * BASES_PER_SUIT bases of each suit here instead of searching. Each entry is the int returned
+ * by RunAlgorithm.suitEntry, and entries are indexed by the counts read as a number in base
+ * numDecks + 1 (the ace being the lowest digit).
+ *
+ * Tables are written by generate, and are memory-mapped from the directory named by the
+ * rummy.runTables system property ("tables" by default), as runs-[numDecks].tbl. Each table is
+ * loaded the first time counts it could cover are looked up, and the smallest table covering
+ * the counts is used. If none does, the entry is computed on the fly, and remembered in an
+ * in-memory table filled as counts are looked up, if the counts have at most MEMO_MAX_DECKS
+ * copies of each card number (larger in-memory tables would take too much memory).
+ *
+ * The file holds a header of four ints (MAGIC, VERSION, numDecks, BASES_PER_SUIT) followed by
+ * the entries, all big-endian.
+ */
+public class RunTable {
+    public final static int BASES_PER_SUIT = 4;
+    public final static int MAX_DECKS = 3;
+    public final static String TABLE_DIR_PROPERTY = "rummy.runTables";
+    private final static String DEFAULT_TABLE_DIR = "tables";
+    private final static int MAGIC = 0x52554E53;
+    private final static int VERSION = 1;
+    private final static int HEADER_SIZE = 4 * Integer.BYTES;
+    private final static int NUM_RANKS = PackedHand.NUM_RANKS;
+    private final static int MEMO_MAX_DECKS = 2;
+    // No entry holds an empty first basis with a non-empty last one
+    private final static int NOT_COMPUTED = Integer.MIN_VALUE;
+    private final static Object LOCK = new Object();
+    private final static RunTable[] TABLES = new RunTable[MAX_DECKS + 1];
+    private static volatile boolean[] loaded = new boolean[MAX_DECKS + 1];
+    private static volatile int[][] memos = new int[MEMO_MAX_DECKS + 1][];
+
+    private final int numDecks;
+    private final ByteBuffer entries;
+
+    private RunTable(int numDecks, ByteBuffer entries) {
+        this.numDecks = numDecks;
+        this.entries = entries;
+    }
+
+    /**
+     * Maps the table at the given path.
+     *
+     * @param path the path of the table
+     * @return the mapped table
+     * @throws IOException if the file cannot be read, or is not a valid table
+     */
+    public static RunTable load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a run table");
+            }
+            if (buffer.getInt(4) != VERSION || buffer.getInt(12) != BASES_PER_SUIT) {
+                throw new IOException(path + " has an unsupported version");
+            }
+            int numDecks = buffer.getInt(8);
+            if (numDecks < 1 || numDecks > MAX_DECKS
+                    || buffer.capacity() != HEADER_SIZE + (long) Integer.BYTES * numStates(numDecks)) {
+                throw new IOException(path + " has the wrong size");
+            }
+            buffer.position(HEADER_SIZE);
+            return new RunTable(numDecks, buffer.slice());
+        }
+    }
+
+    /**
+     * Computes the table for the given number of decks, and writes it to the given path.
+     *
+     * @param numDecks the greatest number of copies of each card number
+     * @param path the path of the table
+     * @throws IOException if the file cannot be written
+     */
+    public static void generate(int numDecks, Path path) throws IOException {
+        if (numDecks < 1 || numDecks > MAX_DECKS) {
+            throw new IllegalArgumentException("Tables can only be generated for 1 to " + MAX_DECKS + " decks");
+        }
+        int numStates = numStates(numDecks);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) Integer.BYTES * numStates);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(numDecks).putInt(BASES_PER_SUIT);
+            int[] cardCounts = new int[NUM_RANKS + 1];
+            for (int index = 0; index < numStates; index++) {
+                buffer.putInt(RunAlgorithm.suitEntry(cardCounts));
+                // Move on to the next counts, as an odometer in base numDecks + 1
+                for (int cardNum = 1; cardNum <= NUM_RANKS && ++cardCounts[cardNum] > numDecks; cardNum++) {
+                    cardCounts[cardNum] = 0;
+                }
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Returns the number of entries in the table for the given number of decks.
+     *
+     * @param numDecks the greatest number of copies of each card number
+     * @return the number of entries
+     */
+    public static int numStates(int numDecks) {
+        long numStates = 1;
+        for (int cardNum = 1; cardNum <= NUM_RANKS; cardNum++) {
+            numStates *= numDecks + 1;
+        }
+        return Math.toIntExact(numStates);
+    }
+
+    /**
+     * Returns the path from which the table for the given number of decks is loaded.
+     *
+     * @param numDecks the greatest number of copies of each card number
+     * @return the path of the table
+     */
+    public static Path tablePath(int numDecks) {
+        return Paths.get(System.getProperty(TABLE_DIR_PROPERTY, DEFAULT_TABLE_DIR), "runs-" + numDecks + ".tbl");
+    }
+
+    /**
+     * Returns the greatest number of copies of each card number this table covers.
+     *
+     * @return the number of decks
+     */
+    public int getNumDecks() {
+        return this.numDecks;
+    }
+
+    /**
+     * Returns the best bases of a suit with the given card counts, which must not exceed
+     * the number of decks of this table.
+     *
+     * @param cardCounts the card counts of the suit, indexed by card number
+     * @return the packed bases, as returned by RunAlgorithm.suitEntry
+     */
+    public int get(int[] cardCounts) {
+        return this.entries.getInt(index(cardCounts, this.numDecks) * Integer.BYTES);
+    }
+
+    /**
+     * Returns the index of the entry for the given card counts in a table for the given
+     * number of decks.
+     *
+     * @param cardCounts the card counts of the suit, indexed by card number
+     * @param numDecks the greatest number of copies of each card number
+     * @return the index of the entry
+     */
+    private static int index(int[] cardCounts, int numDecks) {
+        int index = 0;
+        for (int cardNum = NUM_RANKS; cardNum > 0; cardNum--) {
+            index = index * (numDecks + 1) + cardCounts[cardNum];
+        }
+        return index;
+    }
+
+    /**
+     * Returns the best bases of a suit with the given card counts, from the smallest table
+     * covering the counts, or computed on the fly if there is none.
+     *
+     * @param cardCounts the card counts of the suit, indexed by card number
+     * @return the packed bases, as returned by RunAlgorithm.suitEntry
+     */
+    public static int lookup(int[] cardCounts) {
+        int maxCount = 0;
+        for (int cardNum = 1; cardNum <= NUM_RANKS; cardNum++) {
+            maxCount = Math.max(maxCount, cardCounts[cardNum]);
+        }
+        for (int numDecks = Math.max(1, maxCount); numDecks <= MAX_DECKS; numDecks++) {
+            RunTable table = getTable(numDecks);
+            if (table != null) {
+                return table.get(cardCounts);
+            }
+        }
+        if (maxCount > MEMO_MAX_DECKS) {
+            return RunAlgorithm.suitEntry(cardCounts);
+        }
+        int numDecks = Math.max(1, maxCount);
+        int[] memo = getMemo(numDecks);
+        int index = index(cardCounts, numDecks);
+        int entry = memo[index];
+        if (entry == NOT_COMPUTED) {
+            // Threads racing here compute and store the same entry
+            entry = RunAlgorithm.suitEntry(cardCounts);
+            memo[index] = entry;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the in-memory table for the given number of decks, creating it on first use.
+     *
+     * @param numDecks the greatest number of copies of each card number
+     * @return the entries computed so far, NOT_COMPUTED for the others
+     */
+    private static int[] getMemo(int numDecks) {
+        int[] memo = memos[numDecks];
+        if (memo == null) {
+            synchronized (LOCK) {
+                memo = memos[numDecks];
+                if (memo == null) {
+                    memo = new int[numStates(numDecks)];
+                    Arrays.fill(memo, NOT_COMPUTED);
+                    int[][] newMemos = memos.clone();
+                    newMemos[numDecks] = memo;
+                    memos = newMemos;
+                }
+            }
+        }
+        return memo;
+    }
+
+    /**
+     * Returns the table for the given number of decks, loading it on first use.
+     *
+     * @param numDecks the greatest number of copies of each card number
+     * @return the table, or null if there is no table for the number of decks
+     */
+    private static RunTable getTable(int numDecks) {
+        if (!loaded[numDecks]) {
+            synchronized (LOCK) {
+                if (!loaded[numDecks]) {
+                    Path path = tablePath(numDecks);
+                    if (Files.isRegularFile(path)) {
+                        try {
+                            TABLES[numDecks] = load(path);
+                        } catch (IOException e) {
+                            System.err.println("Warning: ignoring run table: " + e.getMessage());
+                        }
+                    }
+                    boolean[] newLoaded = loaded.clone();
+                    newLoaded[numDecks] = true;
+                    loaded = newLoaded;
+                }
+            }
+        }
+        return TABLES[numDecks];
+    }
+}
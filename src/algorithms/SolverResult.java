@@ -0,0 +1,84 @@
+package algorithms;
+
+import hand.Card;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bases found by AnytimeAlgorithm within its budget, with whether they are known to be
+ * optimal and how much searching went into them.
+ */
+public class SolverResult {
+    private final Map<String, List<List<Card>>> bases;
+    private final int numCardsMissing;
+    private final boolean isOptimal;
+    private final boolean isRefined;
+    private final long numNodes;
+    private final long elapsedNanos;
+
+    SolverResult(Map<String, List<List<Card>>> bases, int numCardsMissing, boolean isOptimal, boolean isRefined,
+                 long numNodes, long elapsedNanos) {
+        this.bases = bases;
+        this.numCardsMissing = numCardsMissing;
+        this.isOptimal = isOptimal;
+        this.isRefined = isRefined;
+        this.numNodes = numNodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the best bases found.
+     *
+     * @return a map between the Books / Runs and their bases
+     */
+    public Map<String, List<List<Card>>> getBases() {
+        return this.bases;
+    }
+
+    /**
+     * Returns the number of cards missing from the best bases found.
+     *
+     * @return the number of cards missing
+     */
+    public int getNumCardsMissing() {
+        return this.numCardsMissing;
+    }
+
+    /**
+     * Returns whether the bases are proven to leave the fewest cards missing, either because
+     * the search finished or because no cards are missing.
+     *
+     * @return true if the bases are optimal. False if they may not be.
+     */
+    public boolean isOptimal() {
+        return this.isOptimal;
+    }
+
+    /**
+     * Returns whether the search found better bases than the greedy strategy.
+     *
+     * @return true if the bases came from the search. False if they are the greedy bases.
+     */
+    public boolean isRefined() {
+        return this.isRefined;
+    }
+
+    /**
+     * Returns the number of nodes the search visited.
+     *
+     * @return the number of nodes
+     */
+    public long getNumNodes() {
+        return this.numNodes;
+    }
+
+    /**
+     * Returns the time taken, in nanoseconds.
+     *
+     * @return the time taken
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+}
@@ -0,0 +1,18 @@
+package algorithms;
+
+/**
+ * Represents the strategies which may be used to determine optimal bases.
+ * Either GREEDY or EXACT.
+ */
+public enum Strategy {
+
+    /**
+     * Forms books then runs, and runs then books, greedily, keeping the better of the two.
+     */
+    GREEDY,
+
+    /**
+     * Searches for the bases which truly minimise the number of missing cards.
+     */
+    EXACT
+}
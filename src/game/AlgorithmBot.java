@@ -0,0 +1,144 @@
+package game;
+
+import algorithms.Algorithm;
+import algorithms.DiscardAlgorithm;
+import algorithms.HandEvaluator;
+import algorithms.Strategy;
+import hand.Card;
+import hand.PackedHand;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bot which plays to minimise the number of cards missing from its contract, using the
+ * algorithms package with the given strategy.
+ *
+ * Before going down, a card is taken or bought only if it reduces the number of missing cards,
+ * and the discard is chosen by DiscardAlgorithm. The bot goes down as soon as no cards are missing.
+ * After going down, it takes discards which can be laid off, and discards its highest scoring card.
+ *
+ * The analysis of the hand is kept between calls, and updated incrementally when the hand
+ * has changed by a single card.
+ */
+public class AlgorithmBot implements Bot {
+    private final Strategy strategy;
+    private HandEvaluator evaluator;
+    private Contract contract;
+
+    /**
+     * Instantiates a new bot using the given strategy.
+     *
+     * @param strategy the strategy used to determine the bases
+     */
+    public AlgorithmBot(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    @Override
+    public boolean takeDiscard(GameView view, Card discard) {
+        if (view.isDown()) {
+            return view.canLayOff(discard);
+        }
+        return improves(view, discard);
+    }
+
+    @Override
+    public boolean buy(GameView view, Card discard) {
+        return !view.isDown() && view.getBuysLeft() > 0 && improves(view, discard);
+    }
+
+    @Override
+    public Map<String, List<List<Card>>> goDown(GameView view) {
+        if (update(view).numCardsMissing() > 0) {
+            return null;
+        }
+        Contract contract = view.getContract();
+        return Algorithm.getOptimalBases(view.getHand(), contract.getNumBooks(), contract.getNumRuns(),
+                this.strategy);
+    }
+
+    @Override
+    public Card discard(GameView view) {
+        if (!view.isDown()) {
+            return DiscardAlgorithm.getBestDiscard(update(view));
+        }
+        // Get rid of the highest scoring card
+        PackedHand hand = view.getHand();
+        Card discard = null;
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            if (hand.count(ordinal) > 0) {
+                Card card = Card.fromOrdinal(ordinal);
+                if (discard == null || card.getCardScore() > discard.getCardScore()) {
+                    discard = card;
+                }
+            }
+        }
+        return discard;
+    }
+
+    /**
+     * Determines whether adding the given card to the hand reduces the number of missing cards.
+     *
+     * @param view the player's view of the game
+     * @param card the card to add
+     * @return true if the card reduces the number of missing cards. False otherwise.
+     */
+    private boolean improves(GameView view, Card card) {
+        HandEvaluator evaluator = update(view);
+        return evaluator.numCardsMissingWith(card) < evaluator.numCardsMissing();
+    }
+
+    /**
+     * Brings the evaluator up to date with the player's hand. If the hand differs from the
+     * evaluated hand by one card, the evaluator is updated incrementally. Otherwise, the hand
+     * is analysed from scratch.
+     *
+     * @param view the player's view of the game
+     * @return the up to date evaluator
+     */
+    private HandEvaluator update(GameView view) {
+        PackedHand hand = view.getHand();
+        if (this.evaluator != null && this.contract == view.getContract()) {
+            int changed = -1;
+            int delta = 0;
+            for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+                int diff = hand.count(ordinal) - this.evaluator.count(ordinal);
+                if (diff == 0) {
+                    continue;
+                }
+                if (changed != -1 || Math.abs(diff) > 1) {
+                    // More than one card has changed
+                    changed = -2;
+                    break;
+                }
+                changed = ordinal;
+                delta = diff;
+            }
+            if (changed == -1) {
+                return this.evaluator;
+            } else if (changed >= 0) {
+                if (delta > 0) {
+                    this.evaluator.add(Card.fromOrdinal(changed));
+                } else {
+                    this.evaluator.remove(Card.fromOrdinal(changed));
+                }
+                return this.evaluator;
+            }
+        }
+        this.contract = view.getContract();
+        this.evaluator = new HandEvaluator(hand, this.contract.getNumBooks(), this.contract.getNumRuns(),
+                this.strategy);
+        return this.evaluator;
+    }
+
+    /**
+     * Returns the String representation of this bot.
+     *
+     * @return the String representation of this bot
+     */
+    @Override
+    public String toString() {
+        return "AlgorithmBot(" + this.strategy + ")";
+    }
+}
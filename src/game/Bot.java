@@ -0,0 +1,52 @@
+package game;
+
+import hand.Card;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A strategy for playing Shanghai. Each player is given their own bot, so a bot may keep
+ * state between calls. The hand given by its view is a copy, so the game cannot be changed
+ * through it.
+ */
+public interface Bot {
+
+    /**
+     * Decides whether to take the top of the discard pile at the start of the player's turn,
+     * instead of drawing from the stock.
+     *
+     * @param view the player's view of the game
+     * @param discard the top of the discard pile
+     * @return true if the discard is taken. False otherwise.
+     */
+    boolean takeDiscard(GameView view, Card discard);
+
+    /**
+     * Decides whether to buy the top of the discard pile out of turn. A bought discard
+     * comes with a penalty card from the stock.
+     *
+     * @param view the player's view of the game
+     * @param discard the top of the discard pile
+     * @return true if the discard is bought. False otherwise.
+     */
+    boolean buy(GameView view, Card discard);
+
+    /**
+     * Decides whether to go down, and with which bases. The bases must meet the contract
+     * exactly, in the format returned by Algorithm.getOptimalBases. Bases which do not are
+     * ignored, and the player stays up.
+     *
+     * @param view the player's view of the game
+     * @return a map between the Books / Runs and their bases, or null to stay up
+     */
+    Map<String, List<List<Card>>> goDown(GameView view);
+
+    /**
+     * Chooses a card from the hand to discard at the end of the player's turn.
+     *
+     * @param view the player's view of the game
+     * @return the card to discard
+     */
+    Card discard(GameView view);
+}
@@ -0,0 +1,17 @@
+package game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Creates the bot for one seat of a game.
+ */
+public interface BotFactory {
+
+    /**
+     * Creates a new bot.
+     *
+     * @param random the random stream the bot may use, which is seeded by the game
+     * @return the new bot
+     */
+    Bot create(SplittableRandom random);
+}
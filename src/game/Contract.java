@@ -0,0 +1,42 @@
+package game;
+
+/**
+ * Represents the contracts of a game of Shanghai, in the order they are played.
+ * Each contract requires a number of books and runs to be formed before a player may go down.
+ */
+public enum Contract {
+
+    TWO_BOOKS(2, 0),
+    ONE_BOOK_ONE_RUN(1, 1),
+    TWO_RUNS(0, 2),
+    THREE_BOOKS(3, 0),
+    TWO_BOOKS_ONE_RUN(2, 1),
+    ONE_BOOK_TWO_RUNS(1, 2),
+    THREE_RUNS(0, 3);
+
+    private final int numBooks;
+    private final int numRuns;
+
+    Contract(int numBooks, int numRuns) {
+        this.numBooks = numBooks;
+        this.numRuns = numRuns;
+    }
+
+    /**
+     * Returns the number of books required by this contract.
+     *
+     * @return the number of books
+     */
+    public int getNumBooks() {
+        return this.numBooks;
+    }
+
+    /**
+     * Returns the number of runs required by this contract.
+     *
+     * @return the number of runs
+     */
+    public int getNumRuns() {
+        return this.numRuns;
+    }
+}
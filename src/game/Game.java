@@ -0,0 +1,351 @@
+package game;
+
+import hand.Card;
+import hand.PackedHand;
+import hand.Shoe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A game of Shanghai between bots, played through every contract in order.
+ *
+ * Each round, HAND_SIZE cards are dealt to each player from a shoe of numDecks shuffled decks,
+ * and the next card starts the discard pile. On their turn, a player either takes the top
+ * discard or draws from the stock. If they draw from the stock, the other players, in turn
+ * order, are first offered to buy the discard, taking a penalty card from the stock with it.
+ * A player who meets the contract may go down, after which every card which fits a meld on
+ * the table is laid off automatically. The turn ends with a discard, and the round ends as
+ * soon as a player has no cards left. Players then score the value of the cards left in their
+ * hands, and the lowest total score over all rounds wins.
+ *
+ * If the stock runs out, the discard pile (except its top card) is shuffled into a new stock.
+ * A round which is not finished after MAX_TURNS turns, or in which no cards are left to draw,
+ * is scored as it stands.
+ */
+public class Game {
+    public final static int HAND_SIZE = 11;
+    public final static int MAX_BUYS = 3;
+    public final static int MAX_TURNS = 1000;
+    private final static int[] SCORES = new int[Card.NUM_CARDS];
+
+    private final Player[] players;
+    private final PackedHand[] hands;
+    private final SplittableRandom random;
+    private final Shoe shoe;
+    private final int[] stock;
+    private int stockSize;
+    private final int[] discards;
+    private int numDiscards;
+    private final List<Meld> table = new ArrayList<>();
+    private Contract contract;
+    private int numTurns;
+
+    static {
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            SCORES[ordinal] = Card.fromOrdinal(ordinal).getCardScore();
+        }
+    }
+
+    /**
+     * Instantiates a new game between the given bots.
+     *
+     * @param bots the bots, in seating order
+     * @param numDecks the number of decks in the shoe
+     * @param random the random stream used to shuffle the shoe
+     */
+    public Game(List<Bot> bots, int numDecks, SplittableRandom random) {
+        if (bots.size() * HAND_SIZE + 1 > Card.NUM_CARDS * numDecks) {
+            throw new IllegalArgumentException("Not enough cards for " + bots.size() + " players");
+        }
+        this.players = new Player[bots.size()];
+        this.hands = new PackedHand[bots.size()];
+        for (int i = 0; i < this.players.length; i++) {
+            this.players[i] = new Player(bots.get(i));
+            this.hands[i] = this.players[i].hand;
+        }
+        this.random = random;
+        this.shoe = new Shoe(numDecks, new PackedHand(), random);
+        this.stock = new int[Card.NUM_CARDS * numDecks];
+        this.discards = new int[Card.NUM_CARDS * numDecks];
+    }
+
+    /**
+     * Plays every contract in order, with the deal passing to the left each round.
+     *
+     * @return the total score of each player, in seating order
+     */
+    public int[] play() {
+        int[] scores = new int[this.players.length];
+        int dealer = 0;
+        for (Contract contract : Contract.values()) {
+            playRound(contract, dealer);
+            for (int i = 0; i < this.players.length; i++) {
+                scores[i] += this.players[i].score();
+            }
+            dealer = (dealer + 1) % this.players.length;
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the number of turns played so far.
+     *
+     * @return the number of turns
+     */
+    public int getNumTurns() {
+        return this.numTurns;
+    }
+
+    /**
+     * Deals and plays a round until a player goes out, or the round cannot continue.
+     *
+     * @param contract the contract of the round
+     * @param dealer the seat of the dealer
+     */
+    private void playRound(Contract contract, int dealer) {
+        this.contract = contract;
+        this.table.clear();
+        this.numDiscards = 0;
+        this.shoe.reset();
+        this.stockSize = this.shoe.deal(this.hands, HAND_SIZE, this.stock);
+        for (Player player : this.players) {
+            player.isDown = false;
+            player.buysLeft = MAX_BUYS;
+        }
+        this.discards[this.numDiscards++] = this.stock[--this.stockSize];
+        int seat = dealer;
+        for (int turn = 0; turn < MAX_TURNS; turn++) {
+            seat = (seat + 1) % this.players.length;
+            this.numTurns++;
+            if (!playTurn(seat)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Plays one turn for the player in the given seat.
+     *
+     * @param seat the seat of the player
+     * @return true if the round continues. False if it has ended.
+     */
+    private boolean playTurn(int seat) {
+        Player player = this.players[seat];
+        Card top = this.numDiscards > 0 ? Card.fromOrdinal(this.discards[this.numDiscards - 1]) : null;
+        if (top != null && player.bot.takeDiscard(player, top)) {
+            player.hand.add(this.discards[--this.numDiscards]);
+        } else {
+            if (top != null) {
+                offerBuy(seat, top);
+            }
+            if (!refillStock()) {
+                return false;
+            }
+            player.hand.add(this.stock[--this.stockSize]);
+        }
+        if (!player.isDown) {
+            goDown(player);
+        }
+        if (player.isDown) {
+            layOff(player);
+        }
+        if (player.hand.isEmpty()) {
+            return false;
+        }
+        Card discard = player.bot.discard(player);
+        if (discard == null || !player.hand.remove(discard)) {
+            throw new IllegalStateException(player.bot + " discarded a card not in its hand: " + discard);
+        }
+        this.discards[this.numDiscards++] = discard.getOrdinal();
+        return !player.hand.isEmpty();
+    }
+
+    /**
+     * Offers the given discard to every other player who may buy it, in turn order after the
+     * given seat. The first player to accept takes it, along with a penalty card.
+     *
+     * @param seat the seat of the player whose turn it is
+     * @param discard the top of the discard pile
+     */
+    private void offerBuy(int seat, Card discard) {
+        for (int i = 1; i < this.players.length; i++) {
+            Player player = this.players[(seat + i) % this.players.length];
+            if (player.isDown || player.buysLeft == 0 || !player.bot.buy(player, discard)) {
+                continue;
+            }
+            player.hand.add(this.discards[--this.numDiscards]);
+            player.buysLeft--;
+            if (refillStock()) {
+                player.hand.add(this.stock[--this.stockSize]);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Puts the player down with the bases chosen by their bot, if they meet the contract.
+     *
+     * @param player the player
+     */
+    private void goDown(Player player) {
+        Map<String, List<List<Card>>> bases = player.bot.goDown(player);
+        if (bases == null) {
+            return;
+        }
+        List<List<Card>> books = bases.getOrDefault("Books", List.of());
+        List<List<Card>> runs = bases.getOrDefault("Runs", List.of());
+        if (books.size() != this.contract.getNumBooks() || runs.size() != this.contract.getNumRuns()) {
+            return;
+        }
+        List<Meld> melds = new ArrayList<>();
+        for (List<Card> basis : books) {
+            melds.add(Meld.book(basis));
+        }
+        for (List<Card> basis : runs) {
+            melds.add(Meld.run(basis));
+        }
+        PackedHand remaining = new PackedHand(player.hand);
+        for (Meld meld : melds) {
+            if (meld == null) {
+                return;
+            }
+            for (Card card : meld.getCards()) {
+                if (!remaining.remove(card)) {
+                    return;
+                }
+            }
+        }
+        player.hand.set(remaining);
+        player.isDown = true;
+        this.table.addAll(melds);
+    }
+
+    /**
+     * Lays off every card in the player's hand which fits a meld on the table.
+     *
+     * @param player the player
+     */
+    private void layOff(Player player) {
+        boolean laidOff = true;
+        while (laidOff && !player.hand.isEmpty()) {
+            laidOff = false;
+            for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+                if (player.hand.count(ordinal) == 0) {
+                    continue;
+                }
+                Card card = Card.fromOrdinal(ordinal);
+                for (Meld meld : this.table) {
+                    if (meld.canLayOff(card)) {
+                        meld.layOff(card);
+                        player.hand.remove(ordinal);
+                        laidOff = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Shuffles the discard pile, except its top card, into the stock if the stock is empty.
+     *
+     * @return true if there is a card to draw. False otherwise.
+     */
+    private boolean refillStock() {
+        if (this.stockSize > 0) {
+            return true;
+        }
+        if (this.numDiscards <= 1) {
+            return false;
+        }
+        int top = this.discards[this.numDiscards - 1];
+        System.arraycopy(this.discards, 0, this.stock, 0, this.numDiscards - 1);
+        this.stockSize = this.numDiscards - 1;
+        this.discards[0] = top;
+        this.numDiscards = 1;
+        shuffleStock();
+        return true;
+    }
+
+    /**
+     * Shuffles the stock using a Fisher-Yates shuffle.
+     */
+    private void shuffleStock() {
+        for (int i = this.stockSize - 1; i > 0; i--) {
+            int swap = this.random.nextInt(i + 1);
+            int ordinal = this.stock[swap];
+            this.stock[swap] = this.stock[i];
+            this.stock[i] = ordinal;
+        }
+    }
+
+    /**
+     * A player in the game, which is also their view of the game.
+     */
+    private class Player implements GameView {
+        private final Bot bot;
+        private final PackedHand hand = new PackedHand();
+        private boolean isDown;
+        private int buysLeft;
+
+        private Player(Bot bot) {
+            this.bot = bot;
+        }
+
+        /**
+         * Determines the value of the cards left in the player's hand.
+         *
+         * @return the score of the hand
+         */
+        private int score() {
+            int score = 0;
+            for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+                score += SCORES[ordinal] * this.hand.count(ordinal);
+            }
+            return score;
+        }
+
+        @Override
+        public Contract getContract() {
+            return contract;
+        }
+
+        @Override
+        public int getNumPlayers() {
+            return players.length;
+        }
+
+        @Override
+        public PackedHand getHand() {
+            return new PackedHand(this.hand);
+        }
+
+        @Override
+        public boolean isDown() {
+            return this.isDown;
+        }
+
+        @Override
+        public int getBuysLeft() {
+            return this.buysLeft;
+        }
+
+        @Override
+        public int getStockSize() {
+            return stockSize;
+        }
+
+        @Override
+        public boolean canLayOff(Card card) {
+            for (Meld meld : table) {
+                if (meld.canLayOff(card)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
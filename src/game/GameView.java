@@ -0,0 +1,60 @@
+package game;
+
+import hand.Card;
+import hand.PackedHand;
+
+/**
+ * A read-only view of a game of Shanghai, from the point of view of one player.
+ */
+public interface GameView {
+
+    /**
+     * Returns the contract of the current round.
+     *
+     * @return the current contract
+     */
+    Contract getContract();
+
+    /**
+     * Returns the number of players in the game.
+     *
+     * @return the number of players
+     */
+    int getNumPlayers();
+
+    /**
+     * Returns a copy of the player's hand. Changes to the copy do not affect the game.
+     *
+     * @return a new packed hand of the player's cards
+     */
+    PackedHand getHand();
+
+    /**
+     * Determines whether the player has gone down this round.
+     *
+     * @return true if the player has gone down. False otherwise.
+     */
+    boolean isDown();
+
+    /**
+     * Returns how many more times the player may buy a discard this round.
+     *
+     * @return the number of buys left
+     */
+    int getBuysLeft();
+
+    /**
+     * Returns the number of cards left in the stock.
+     *
+     * @return the number of cards in the stock
+     */
+    int getStockSize();
+
+    /**
+     * Determines whether the given card could be laid off on any meld on the table.
+     *
+     * @param card the card to lay off
+     * @return true if the card could be laid off. False otherwise.
+     */
+    boolean canLayOff(Card card);
+}
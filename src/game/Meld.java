@@ -0,0 +1,216 @@
+package game;
+
+import hand.Card;
+import hand.CardType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A book or run which has been put down on the table.
+ *
+ * A book holds at least three cards of the same card number, and a run holds at least four
+ * consecutive cards of the same suit, where the ace may be played either below the two or above
+ * the king. Jokers may stand in for any card, but every meld holds at least one natural card.
+ */
+public class Meld {
+    private final static int JOKER_NUM = 14;
+    private final static int MIN_BOOK_CARDS = 3;
+    private final static int MIN_RUN_CARDS = 4;
+    private final static int LOW_ACE = 1;
+    private final static int HIGH_ACE = 14;
+
+    private final boolean isRun;
+    private final int cardNum;
+    private final CardType suit;
+    private int low;
+    private int high;
+    private final List<Card> cards;
+
+    private Meld(boolean isRun, int cardNum, CardType suit, int low, int high, List<Card> cards) {
+        this.isRun = isRun;
+        this.cardNum = cardNum;
+        this.suit = suit;
+        this.low = low;
+        this.high = high;
+        this.cards = new ArrayList<>(cards);
+    }
+
+    /**
+     * Creates a book from the given cards, or returns null if they do not form a book.
+     *
+     * @param cards the cards of the book
+     * @return the book, or null if not valid
+     */
+    public static Meld book(List<Card> cards) {
+        if (cards.size() < MIN_BOOK_CARDS) {
+            return null;
+        }
+        int cardNum = 0;
+        for (Card card : cards) {
+            if (card.getCardNum() == JOKER_NUM) {
+                continue;
+            }
+            if (cardNum != 0 && card.getCardNum() != cardNum) {
+                return null;
+            }
+            cardNum = card.getCardNum();
+        }
+        if (cardNum == 0) {
+            // Only jokers
+            return null;
+        }
+        return new Meld(false, cardNum, null, cardNum, cardNum, cards);
+    }
+
+    /**
+     * Creates a run from the given cards, or returns null if they do not form a run.
+     * If an ace could be played at either end, it is played below the two.
+     *
+     * @param cards the cards of the run
+     * @return the run, or null if not valid
+     */
+    public static Meld run(List<Card> cards) {
+        if (cards.size() < MIN_RUN_CARDS || cards.size() > HIGH_ACE) {
+            return null;
+        }
+        CardType suit = null;
+        int numJokers = 0;
+        // Bit i is set if the card with number i is present
+        int present = 0;
+        for (Card card : cards) {
+            if (card.getCardNum() == JOKER_NUM) {
+                numJokers++;
+                continue;
+            }
+            if ((suit != null && card.getCardType() != suit) || (present & 1 << card.getCardNum()) != 0) {
+                return null;
+            }
+            suit = card.getCardType();
+            present |= 1 << card.getCardNum();
+        }
+        if (suit == null) {
+            // Only jokers
+            return null;
+        }
+        Meld meld = placeRun(suit, present, numJokers, cards);
+        if (meld == null && (present & 1 << LOW_ACE) != 0) {
+            // Try the ace above the king instead
+            meld = placeRun(suit, present & ~(1 << LOW_ACE) | 1 << HIGH_ACE, numJokers, cards);
+        }
+        return meld;
+    }
+
+    /**
+     * Places the natural cards of a run, using jokers to fill gaps, then to extend the run
+     * upwards, then downwards.
+     *
+     * @param suit the suit of the run
+     * @param present the positions of the natural cards, as a bit mask
+     * @param numJokers the number of jokers
+     * @param cards the cards of the run
+     * @return the run, or null if the cards cannot be placed
+     */
+    private static Meld placeRun(CardType suit, int present, int numJokers, List<Card> cards) {
+        int low = Integer.numberOfTrailingZeros(present);
+        int high = 31 - Integer.numberOfLeadingZeros(present);
+        int numGaps = high - low + 1 - Integer.bitCount(present);
+        if (numGaps > numJokers) {
+            return null;
+        }
+        int numExtra = numJokers - numGaps;
+        int numAbove = Math.min(numExtra, HIGH_ACE - high);
+        high += numAbove;
+        low -= numExtra - numAbove;
+        if (low < LOW_ACE) {
+            return null;
+        }
+        return new Meld(true, 0, suit, low, high, cards);
+    }
+
+    /**
+     * Determines whether this meld is a run.
+     *
+     * @return true if this meld is a run. False if it is a book.
+     */
+    public boolean isRun() {
+        return this.isRun;
+    }
+
+    /**
+     * Returns the cards in this meld.
+     *
+     * @return an unmodifiable view of the cards
+     */
+    public List<Card> getCards() {
+        return Collections.unmodifiableList(this.cards);
+    }
+
+    /**
+     * Determines whether the given card can be laid off on this meld.
+     *
+     * @param card the card to lay off
+     * @return true if the card can be laid off. False otherwise.
+     */
+    public boolean canLayOff(Card card) {
+        return layOffPosition(card) != 0;
+    }
+
+    /**
+     * Lays off the given card on this meld.
+     *
+     * @param card the card to lay off
+     * @throws IllegalArgumentException if the card cannot be laid off on this meld
+     */
+    public void layOff(Card card) {
+        int position = layOffPosition(card);
+        if (position == 0) {
+            throw new IllegalArgumentException("Cannot lay off " + card + " on " + this);
+        }
+        if (this.isRun) {
+            this.low = Math.min(this.low, position);
+            this.high = Math.max(this.high, position);
+        }
+        this.cards.add(card);
+    }
+
+    /**
+     * Determines where the given card would be placed if laid off on this meld.
+     *
+     * @param card the card to lay off
+     * @return the position of the card, or 0 if it cannot be laid off
+     */
+    private int layOffPosition(Card card) {
+        int num = card.getCardNum();
+        if (!this.isRun) {
+            return num == JOKER_NUM || num == this.cardNum ? this.cardNum : 0;
+        }
+        if (num == JOKER_NUM) {
+            if (this.high < HIGH_ACE) {
+                return this.high + 1;
+            }
+            return this.low > LOW_ACE ? this.low - 1 : 0;
+        }
+        if (card.getCardType() != this.suit) {
+            return 0;
+        }
+        if (num == this.high + 1 || (num == LOW_ACE && this.high + 1 == HIGH_ACE)) {
+            return this.high + 1;
+        }
+        if (num == this.low - 1) {
+            return this.low - 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the String representation of this meld.
+     *
+     * @return the String representation of this meld
+     */
+    @Override
+    public String toString() {
+        return (this.isRun ? "Run " : "Book ") + this.cards;
+    }
+}
@@ -0,0 +1,70 @@
+package game;
+
+import algorithms.Algorithm;
+import hand.Card;
+import hand.PackedHand;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A baseline bot which always draws from the stock, never buys, goes down as soon as the
+ * greedy bases meet the contract, and discards a card chosen at random.
+ */
+public class RandomBot implements Bot {
+    private final SplittableRandom random;
+
+    /**
+     * Instantiates a new bot drawing from the given random stream.
+     *
+     * @param random the random stream
+     */
+    public RandomBot(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public boolean takeDiscard(GameView view, Card discard) {
+        return false;
+    }
+
+    @Override
+    public boolean buy(GameView view, Card discard) {
+        return false;
+    }
+
+    @Override
+    public Map<String, List<List<Card>>> goDown(GameView view) {
+        Contract contract = view.getContract();
+        Map<String, List<List<Card>>> bases = Algorithm.getOptimalBases(view.getHand(),
+                contract.getNumBooks(), contract.getNumRuns());
+        if (Algorithm.numCardsMissing(bases, contract.getNumBooks(), contract.getNumRuns()) > 0) {
+            return null;
+        }
+        return bases;
+    }
+
+    @Override
+    public Card discard(GameView view) {
+        PackedHand hand = view.getHand();
+        int index = this.random.nextInt(hand.size());
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            index -= hand.count(ordinal);
+            if (index < 0) {
+                return Card.fromOrdinal(ordinal);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the String representation of this bot.
+     *
+     * @return the String representation of this bot
+     */
+    @Override
+    public String toString() {
+        return "RandomBot";
+    }
+}
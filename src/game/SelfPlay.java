@@ -0,0 +1,109 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many games of Shanghai between the same seating of bots, to compare strategies.
+ *
+ * Games are split between cores using fork/join. Each task is given its own SplittableRandom
+ * stream, and each game its own stream split from it, so every game (and the bots' own random
+ * choices) is reproducible for a given seed, however the games are scheduled.
+ */
+public class SelfPlay {
+    private final static int GAMES_PER_TASK = 16;
+
+    private final List<BotFactory> seats;
+    private final int numDecks;
+
+    /**
+     * Instantiates a new set of games between the given bots.
+     *
+     * @param seats the factories of the bots, in seating order
+     * @param numDecks the number of decks in the shoe
+     */
+    public SelfPlay(List<BotFactory> seats, int numDecks) {
+        this.seats = new ArrayList<>(seats);
+        this.numDecks = numDecks;
+    }
+
+    /**
+     * Plays the given number of games using the common fork/join pool.
+     *
+     * @param numGames the number of games
+     * @param seed the seed from which every random stream is split
+     * @return the results of the games
+     */
+    public SelfPlayResult run(int numGames, long seed) {
+        long startTime = System.nanoTime();
+        long[] totals = ForkJoinPool.commonPool().invoke(
+                new GamesTask(0, numGames, new SplittableRandom(seed)));
+        return new SelfPlayResult(totals, this.seats.size(), numGames, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Plays a single game.
+     *
+     * @param random the random stream of the game
+     * @return the total score of each player, in seating order
+     */
+    private int[] playGame(SplittableRandom random) {
+        List<Bot> bots = new ArrayList<>(this.seats.size());
+        for (BotFactory factory : this.seats) {
+            bots.add(factory.create(random.split()));
+        }
+        return new Game(bots, this.numDecks, random).play();
+    }
+
+    /**
+     * A task which plays a range of games, splitting it in half until small enough.
+     * The result holds, for each seat, the total score followed by the number of wins.
+     */
+    private class GamesTask extends RecursiveTask<long[]> {
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        private GamesTask(int from, int to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected long[] compute() {
+            int numSeats = seats.size();
+            if (this.to - this.from <= GAMES_PER_TASK) {
+                long[] totals = new long[2 * numSeats];
+                for (int i = this.from; i < this.to; i++) {
+                    int[] scores = playGame(this.random.split());
+                    int best = Integer.MAX_VALUE;
+                    for (int score : scores) {
+                        best = Math.min(best, score);
+                    }
+                    for (int seat = 0; seat < numSeats; seat++) {
+                        totals[seat] += scores[seat];
+                        if (scores[seat] == best) {
+                            // Tied winners all count as winning
+                            totals[numSeats + seat]++;
+                        }
+                    }
+                }
+                return totals;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            GamesTask left = new GamesTask(this.from, mid, this.random.split());
+            GamesTask right = new GamesTask(mid, this.to, this.random);
+            left.fork();
+            long[] totals = right.compute();
+            long[] leftTotals = left.join();
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += leftTotals[i];
+            }
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package game;
+
+/**
+ * The results of a set of games, recorded as the total score and number of wins of each seat.
+ */
+public class SelfPlayResult {
+    private final long[] totals;
+    private final int numSeats;
+    private final int numGames;
+    private final long elapsedNanos;
+
+    /**
+     * Instantiates a new set of results.
+     *
+     * @param totals the total score of each seat, followed by the number of wins of each seat
+     * @param numSeats the number of seats
+     * @param numGames the number of games
+     * @param elapsedNanos the time taken to play the games, in nanoseconds
+     */
+    public SelfPlayResult(long[] totals, int numSeats, int numGames, long elapsedNanos) {
+        this.totals = totals.clone();
+        this.numSeats = numSeats;
+        this.numGames = numGames;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of games.
+     *
+     * @return the number of games
+     */
+    public int getNumGames() {
+        return this.numGames;
+    }
+
+    /**
+     * Returns the mean score per game of the given seat.
+     *
+     * @param seat the seat
+     * @return the mean score
+     */
+    public double getMeanScore(int seat) {
+        return (double) this.totals[seat] / this.numGames;
+    }
+
+    /**
+     * Returns the fraction of games won by the given seat, where tied winners all count as winning.
+     *
+     * @param seat the seat
+     * @return the win rate
+     */
+    public double getWinRate(int seat) {
+        return (double) this.totals[this.numSeats + seat] / this.numGames;
+    }
+
+    /**
+     * Returns the number of games played per second.
+     *
+     * @return the throughput in games per second
+     */
+    public double getGamesPerSecond() {
+        return this.numGames * 1e9 / this.elapsedNanos;
+    }
+}
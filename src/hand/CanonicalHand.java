@@ -0,0 +1,201 @@
+package hand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The canonical form of a hand under permutations of the four suits, with the mapping back
+ * to the original suits.
+ *
+ * Runs may be formed in any suit and books from any suits, so a hand is worth the same as
+ * any hand whose suit columns are a permutation of its own. The canonical form sorts the
+ * packed counters of the suits into descending order, leaving the jokers alone, so all 24
+ * permutations of a hand share one canonical form. Hands with equal canonical forms may
+ * still differ in which of several equally good answers an algorithm gives, as ties are
+ * broken in suit order.
+ *
+ * Where some other state differs between suits (such as the cards left in a shoe), suits
+ * may be given classes, and only suits of the same class are permuted.
+ */
+public class CanonicalHand {
+    private final static int[] SINGLE_CLASS = new int[PackedHand.NUM_SUITS];
+
+    private final PackedHand hand;
+    // The original suit at each canonical position, and the reverse
+    private final int[] originalSuits = new int[PackedHand.NUM_SUITS];
+    private final int[] canonicalSuits = new int[PackedHand.NUM_SUITS];
+
+    private CanonicalHand(PackedHand hand, int[] suitClasses) {
+        long[] words = new long[PackedHand.NUM_SUITS + 1];
+        for (int suit = 0; suit <= PackedHand.NUM_SUITS; suit++) {
+            words[suit] = hand.getWord(suit);
+        }
+        for (int suit = 0; suit < PackedHand.NUM_SUITS; suit++) {
+            this.originalSuits[suit] = suit;
+        }
+        // Selection sort of each class's positions, in descending order
+        for (int i = 0; i < PackedHand.NUM_SUITS; i++) {
+            for (int j = i + 1; j < PackedHand.NUM_SUITS; j++) {
+                if (suitClasses[j] == suitClasses[i] && words[j] > words[i]) {
+                    long word = words[i];
+                    words[i] = words[j];
+                    words[j] = word;
+                    int suit = this.originalSuits[i];
+                    this.originalSuits[i] = this.originalSuits[j];
+                    this.originalSuits[j] = suit;
+                }
+            }
+        }
+        for (int suit = 0; suit < PackedHand.NUM_SUITS; suit++) {
+            this.canonicalSuits[this.originalSuits[suit]] = suit;
+        }
+        this.hand = new PackedHand(words, hand.size());
+    }
+
+    /**
+     * Determines the canonical form of the given hand, permuting every suit.
+     *
+     * @param hand the packed hand of cards
+     * @return the canonical form
+     */
+    public static CanonicalHand of(PackedHand hand) {
+        return new CanonicalHand(hand, SINGLE_CLASS);
+    }
+
+    /**
+     * Determines the canonical form of the given hand, only permuting suits of the same class.
+     *
+     * @param hand the packed hand of cards
+     * @param suitClasses the class of each suit, indexed by CardType ordinal
+     * @return the canonical form
+     */
+    public static CanonicalHand of(PackedHand hand, int[] suitClasses) {
+        return new CanonicalHand(hand, suitClasses);
+    }
+
+    /**
+     * Divides the suits into classes by the given per-card values (such as the copies of each
+     * card left in a shoe): two suits share a class if they hold the same value for every
+     * card number. Each class is numbered after its first suit.
+     *
+     * @param values the value of each card, indexed by ordinal
+     * @return the class of each suit, indexed by CardType ordinal
+     */
+    public static int[] getSuitClasses(int[] values) {
+        int[] suitClasses = new int[PackedHand.NUM_SUITS];
+        for (int suit = 0; suit < PackedHand.NUM_SUITS; suit++) {
+            suitClasses[suit] = suit;
+            for (int other = 0; other < suit; other++) {
+                if (sameValues(values, suit, other)) {
+                    suitClasses[suit] = suitClasses[other];
+                    break;
+                }
+            }
+        }
+        return suitClasses;
+    }
+
+    private static boolean sameValues(int[] values, int suit, int other) {
+        for (int i = 0; i < PackedHand.NUM_RANKS; i++) {
+            if (values[suit * PackedHand.NUM_RANKS + i] != values[other * PackedHand.NUM_RANKS + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the canonical hand. It is shared, so it must not be modified.
+     *
+     * @return the packed canonical hand
+     */
+    public PackedHand getHand() {
+        return this.hand;
+    }
+
+    /**
+     * Returns true if the canonical hand has every card in its original suit.
+     *
+     * @return true if no suits were moved. False otherwise.
+     */
+    public boolean isIdentity() {
+        for (int suit = 0; suit < PackedHand.NUM_SUITS; suit++) {
+            if (this.originalSuits[suit] != suit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the original suit of the given suit of the canonical hand.
+     *
+     * @param suit the canonical suit
+     * @return the original suit (jokers are returned unchanged)
+     */
+    public CardType getOriginalSuit(CardType suit) {
+        return suit.ordinal() < PackedHand.NUM_SUITS ? CardType.values()[this.originalSuits[suit.ordinal()]] : suit;
+    }
+
+    /**
+     * Returns the suit of the canonical hand which holds the given original suit.
+     *
+     * @param suit the original suit
+     * @return the canonical suit (jokers are returned unchanged)
+     */
+    public CardType getCanonicalSuit(CardType suit) {
+        return suit.ordinal() < PackedHand.NUM_SUITS ? CardType.values()[this.canonicalSuits[suit.ordinal()]] : suit;
+    }
+
+    /**
+     * Maps a card of the canonical hand back to the original hand.
+     *
+     * @param card the canonical card
+     * @return the original card
+     */
+    public Card toOriginal(Card card) {
+        return mapCard(card, this.originalSuits);
+    }
+
+    /**
+     * Maps a card of the original hand to the canonical hand.
+     *
+     * @param card the original card
+     * @return the canonical card
+     */
+    public Card toCanonical(Card card) {
+        return mapCard(card, this.canonicalSuits);
+    }
+
+    /**
+     * Maps bases found from the canonical hand back to the original hand.
+     *
+     * @param bases a map between the Books / Runs and their bases in the canonical hand
+     * @return a new map between the Books / Runs and the same bases in the original hand
+     */
+    public Map<String, List<List<Card>>> toOriginal(Map<String, List<List<Card>>> bases) {
+        Map<String, List<List<Card>>> original = new TreeMap<>();
+        for (Map.Entry<String, List<List<Card>>> entry : bases.entrySet()) {
+            List<List<Card>> stackBases = new ArrayList<>(entry.getValue().size());
+            for (List<Card> basis : entry.getValue()) {
+                List<Card> originalBasis = new ArrayList<>(basis.size());
+                for (Card card : basis) {
+                    originalBasis.add(toOriginal(card));
+                }
+                stackBases.add(originalBasis);
+            }
+            original.put(entry.getKey(), stackBases);
+        }
+        return original;
+    }
+
+    private static Card mapCard(Card card, int[] suits) {
+        int suit = card.getCardType().ordinal();
+        if (suit >= PackedHand.NUM_SUITS) {
+            return card;
+        }
+        return Card.fromOrdinal(suits[suit] * PackedHand.NUM_RANKS + card.getCardNum() - 1);
+    }
+}
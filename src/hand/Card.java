@@ -14,8 +14,12 @@ import java.util.Map;
  */
 public class Card implements Encodable {
 
+    public final static int NUM_CARDS = 54;
+    private final static Card[] CARDS = new Card[NUM_CARDS];
+
     private final int cardNum;
     private final CardType cardType;
+    private final int ordinal;
     public final static Map<Integer, String> CARD_NAMES = Map.ofEntries(
             Map.entry(1, "ACE"), Map.entry(2, "TWO"), Map.entry(3, "THREE"),
             Map.entry(4, "FOUR"), Map.entry(5, "FIVE"), Map.entry(6, "SIX"),
@@ -55,6 +59,71 @@ public class Card implements Encodable {
         }
         this.cardNum = cardNum;
         this.cardType = cardType;
+        this.ordinal = ordinal(cardNum, cardType);
+    }
+
+    static {
+        for (CardType type : CardType.values()) {
+            try {
+                if (type == CardType.BLACK_JOKER || type == CardType.RED_JOKER) {
+                    Card card = new Card(14, type);
+                    CARDS[card.ordinal] = card;
+                } else {
+                    for (int cardNum = 1; cardNum < 14; cardNum++) {
+                        Card card = new Card(cardNum, type);
+                        CARDS[card.ordinal] = card;
+                    }
+                }
+            } catch (IllegalCardException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the canonical playing card with the given card number and type.
+     * Unlike the constructor, no new instance is created.
+     *
+     * An IllegalCardException is thrown under the same conditions as the constructor.
+     *
+     * @param cardNum     the card number
+     * @param cardType    the card type
+     * @return the canonical card instance
+     * @throws IllegalCardException if not a valid card instance
+     */
+    public static Card of(int cardNum, CardType cardType) throws IllegalCardException {
+        if (cardNum < 1 || cardNum > 14) {
+            throw new IllegalCardException("Invalid card id: " + cardNum);
+        } else if ((cardNum == 14) != (cardType == CardType.BLACK_JOKER || cardType == CardType.RED_JOKER)) {
+            throw new IllegalCardException("Card id is " + cardNum + " but card type is: " + cardType);
+        }
+        return CARDS[ordinal(cardNum, cardType)];
+    }
+
+    /**
+     * Returns the canonical playing card with the given ordinal.
+     *
+     * @param ordinal the ordinal of the card (0 to 53)
+     * @return the canonical card instance
+     */
+    public static Card fromOrdinal(int ordinal) {
+        return CARDS[ordinal];
+    }
+
+    /**
+     * Returns the dense index (0 to 53) of the card with the given number and type.
+     * Suits are laid out in CardType order, from ACE to KING, followed by the
+     * BLACK JOKER and then the RED JOKER.
+     *
+     * @param cardNum the card number
+     * @param cardType the card type
+     * @return the ordinal of the card
+     */
+    public static int ordinal(int cardNum, CardType cardType) {
+        if (cardNum == 14) {
+            return 52 + cardType.ordinal() - CardType.BLACK_JOKER.ordinal();
+        }
+        return cardType.ordinal() * 13 + cardNum - 1;
     }
 
     /**
@@ -75,6 +144,15 @@ public class Card implements Encodable {
         return this.cardType;
     }
 
+    /**
+     * Returns the ordinal of the card
+     *
+     * @return the card ordinal (0 to 53)
+     */
+    public int getOrdinal() {
+        return this.ordinal;
+    }
+
     /**
      * Returns the score of the card
      *
@@ -95,6 +173,9 @@ public class Card implements Encodable {
      */
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o instanceof Card) {
             Card otherCard = (Card) o;
             return this.cardNum == otherCard.getCardNum()
@@ -103,6 +184,16 @@ public class Card implements Encodable {
         return false;
     }
 
+    /**
+     * Returns the hash code of the card, which is its ordinal.
+     *
+     * @return the card ordinal
+     */
+    @Override
+    public int hashCode() {
+        return this.ordinal;
+    }
+
     /**
      * Retrieve the human-readable representation of this card instance.
      *
@@ -135,41 +226,22 @@ public class Card implements Encodable {
     }
 
     /**
-     * Read a playing card from its encoded representation and creates a new instance.
+     * Read a playing card from its encoded representation and returns the canonical instance.
+     * The human-readable form returned by toString is also accepted.
      *
-     * If the encoding is not valid, or the constructor throws an exception, then
-     * a BadEncodingException is thrown.
+     * If the encoding is not valid, then a BadEncodingException is thrown. CardParser reports
+     * the same failures as codes, for callers which expect invalid input.
      *
      * @param string string representing the encoded playing card
-     * @return decoded card instance
+     * @return the canonical decoded card instance
      * @throws BadEncodingException if the format of the given string is invalid
      */
     public static Card fromString(String string) throws BadEncodingException {
-        int cardNum;
-        CardType cardType;
-        String[] inputArgs = string.split(":");
-        if (inputArgs.length != 3) {
-            throw new BadEncodingException("Unexpected number of arguments: "
-                    + inputArgs.length);
-        }
-        if (!inputArgs[0].equals("Card")) {
-            throw new BadEncodingException("Encoded string should start with 'Card'");
-        }
-        try {
-            cardNum = Integer.parseInt(inputArgs[1]);
-        } catch (NumberFormatException e) {
-            throw new BadEncodingException("Could not parse cardNum: " + inputArgs[1]);
-        }
-        try {
-            cardType = CardType.valueOf(inputArgs[2]);
-        } catch (IllegalArgumentException e) {
-            throw new BadEncodingException("Could not parse cardType: " + inputArgs[2]);
-        }
-        try {
-            return new Card(cardNum, cardType);
-        } catch (IllegalCardException e) {
-            throw new BadEncodingException("Illegal constructor arguments");
+        int ordinal = CardParser.parse(string, 0, string.length());
+        if (ordinal < 0) {
+            throw new BadEncodingException("Could not parse '" + string + "': " + CardParser.describe(ordinal));
         }
+        return CARDS[ordinal];
     }
 
     public static String encodeString(String string) {
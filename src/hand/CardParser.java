@@ -0,0 +1,481 @@
+package hand;
+
+/**
+ * Parses cards, and lines of cards, from text without allocating or throwing.
+ *
+ * A card is either in its encoded form (Card:1:SPADE, as written by Card.encode) or in its
+ * human-readable form (SPADE - ACE or JOKER - RED, as written by Card.toString). Text may be
+ * given as a region of a CharSequence, or as a region of a byte array holding ASCII.
+ *
+ * Single cards are parsed by the static parse methods, which return the ordinal of the card
+ * (so the interned card is Card.fromOrdinal(result)), or a negative failure code which
+ * describe turns into a message.
+ *
+ * A hand line holds any number of cards, separated by whitespace or commas (so the output of
+ * List.toString is accepted too), along with optional books=n, runs=n and decks=n fields.
+ * A CardParser instance parses a whole line in one pass into a PackedHand, and keeps the
+ * fields and the position of any error, so each thread should use its own instance.
+ */
+public class CardParser {
+    public final static int INVALID_FORMAT = -1;
+    public final static int INVALID_NUMBER = -2;
+    public final static int INVALID_TYPE = -3;
+    public final static int ILLEGAL_CARD = -4;
+    public final static int UNKNOWN_FIELD = -5;
+    public final static int INVALID_FIELD_VALUE = -6;
+    public final static int TOO_MANY_COPIES = -7;
+    public final static int NOT_SET = -1;
+    private final static String PREFIX = "Card:";
+    private final static String JOKER_NAME = Card.CARD_NAMES.get(14);
+    private final static String[] TYPE_NAMES = new String[CardType.values().length];
+    private final static String[] NUM_NAMES = new String[14];
+    private final static String[] JOKER_COLOURS = {"BLACK", "RED"};
+    private final static String[] FIELD_NAMES = {"books", "runs", "decks"};
+    private final static int MAX_FIELD_VALUE = 1 << 20;
+    private final static boolean[] SEPARATORS = new boolean[128];
+
+    private final int[] fields = new int[FIELD_NAMES.length];
+    private int errorStart;
+    private int errorEnd;
+    private int tokenEnd;
+
+    static {
+        for (CardType type : CardType.values()) {
+            TYPE_NAMES[type.ordinal()] = type.name();
+        }
+        for (int cardNum = 1; cardNum < 14; cardNum++) {
+            NUM_NAMES[cardNum] = Card.CARD_NAMES.get(cardNum);
+        }
+        for (char c : " \t\r\n,[]".toCharArray()) {
+            SEPARATORS[c] = true;
+        }
+    }
+
+    /**
+     * Parses the card which makes up the given region of text.
+     *
+     * @param text the text
+     * @param start the index of the first character of the card
+     * @param end the index after the last character of the card
+     * @return the ordinal of the card, or a negative failure code
+     */
+    public static int parse(CharSequence text, int start, int end) {
+        return parseCard(text, null, start, end);
+    }
+
+    /**
+     * Parses the card which makes up the given region of ASCII bytes.
+     *
+     * @param bytes the bytes
+     * @param start the index of the first byte of the card
+     * @param end the index after the last byte of the card
+     * @return the ordinal of the card, or a negative failure code
+     */
+    public static int parse(byte[] bytes, int start, int end) {
+        return parseCard(null, bytes, start, end);
+    }
+
+    /**
+     * Returns a message describing the given failure code.
+     *
+     * @param code the failure code
+     * @return the description of the failure
+     */
+    public static String describe(int code) {
+        switch (code) {
+            case INVALID_FORMAT:
+                return "not in the form Card:cardNum:cardType or TYPE - NAME";
+            case INVALID_NUMBER:
+                return "not a valid card number";
+            case INVALID_TYPE:
+                return "not a valid card type";
+            case ILLEGAL_CARD:
+                return "the card number does not match the card type";
+            case UNKNOWN_FIELD:
+                return "unknown field";
+            case INVALID_FIELD_VALUE:
+                return "not a valid field value";
+            case TOO_MANY_COPIES:
+                return "too many copies of a card";
+            default:
+                return "no error";
+        }
+    }
+
+    /**
+     * Replaces the cards in the given hand with the cards on the given line, and records its
+     * fields. On failure, the hand holds the cards before the error.
+     *
+     * @param line the line
+     * @param hand the hand to fill
+     * @return the number of cards on the line, or a negative failure code
+     */
+    public int parseLine(CharSequence line, PackedHand hand) {
+        return parseLine(line, null, 0, line.length(), hand);
+    }
+
+    /**
+     * Replaces the cards in the given hand with the cards on the given region of ASCII bytes,
+     * and records its fields. On failure, the hand holds the cards before the error.
+     *
+     * @param bytes the bytes
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @param hand the hand to fill
+     * @return the number of cards on the line, or a negative failure code
+     */
+    public int parseLine(byte[] bytes, int start, int end, PackedHand hand) {
+        return parseLine(null, bytes, start, end, hand);
+    }
+
+    /**
+     * Returns the books field of the last line parsed.
+     *
+     * @return the number of books, or NOT_SET if the line has no books field
+     */
+    public int getNumBooks() {
+        return this.fields[0];
+    }
+
+    /**
+     * Returns the runs field of the last line parsed.
+     *
+     * @return the number of runs, or NOT_SET if the line has no runs field
+     */
+    public int getNumRuns() {
+        return this.fields[1];
+    }
+
+    /**
+     * Returns the decks field of the last line parsed.
+     *
+     * @return the number of decks, or NOT_SET if the line has no decks field
+     */
+    public int getNumDecks() {
+        return this.fields[2];
+    }
+
+    /**
+     * Returns the index of the start of the token which the last line failed on.
+     *
+     * @return the start index of the error
+     */
+    public int getErrorStart() {
+        return this.errorStart;
+    }
+
+    /**
+     * Returns the index after the end of the token which the last line failed on.
+     *
+     * @return the end index of the error
+     */
+    public int getErrorEnd() {
+        return this.errorEnd;
+    }
+
+    private int parseLine(CharSequence text, byte[] bytes, int start, int end, PackedHand hand) {
+        hand.clear();
+        for (int i = 0; i < this.fields.length; i++) {
+            this.fields[i] = NOT_SET;
+        }
+        int numCards = 0;
+        int i = start;
+        while (true) {
+            while (i < end && isSeparator(charAt(text, bytes, i))) {
+                i++;
+            }
+            if (i == end) {
+                return numCards;
+            }
+            int ordinal = parseEncodedToken(text, bytes, i, end);
+            if (ordinal >= 0) {
+                // The common case, a well-formed encoded card, is parsed without scanning it twice
+                if (hand.count(ordinal) == PackedHand.MAX_COPIES) {
+                    this.errorStart = i;
+                    this.errorEnd = this.tokenEnd;
+                    return TOO_MANY_COPIES;
+                }
+                hand.add(ordinal);
+                numCards++;
+                i = this.tokenEnd;
+                continue;
+            }
+            int tokenEnd = i;
+            int equals = -1;
+            boolean hasDash = false;
+            for (char c; tokenEnd < end && !isSeparator(c = charAt(text, bytes, tokenEnd)); tokenEnd++) {
+                if (c == '=' && equals < 0) {
+                    equals = tokenEnd;
+                } else if (c == '-') {
+                    hasDash = true;
+                }
+            }
+            int result;
+            if (equals >= 0) {
+                result = parseField(text, bytes, i, equals, tokenEnd);
+            } else {
+                boolean endsWithDash = charAt(text, bytes, tokenEnd - 1) == '-';
+                if ((!hasDash || endsWithDash) && !regionMatches(text, bytes, i, tokenEnd, PREFIX, PREFIX.length())) {
+                    // The human-readable form may be spread over several tokens, as in SPADE - ACE
+                    int next = skipSpaces(text, bytes, tokenEnd, end);
+                    if (endsWithDash || next < end && charAt(text, bytes, next) == '-') {
+                        next = skipSpaces(text, bytes, endsWithDash ? next : next + 1, end);
+                        tokenEnd = next;
+                        while (tokenEnd < end && !isSeparator(charAt(text, bytes, tokenEnd))) {
+                            tokenEnd++;
+                        }
+                    }
+                }
+                result = parseCard(text, bytes, i, tokenEnd);
+                if (result >= 0) {
+                    if (hand.count(result) == PackedHand.MAX_COPIES) {
+                        result = TOO_MANY_COPIES;
+                    } else {
+                        hand.add(result);
+                        numCards++;
+                    }
+                }
+            }
+            if (result < 0) {
+                this.errorStart = i;
+                this.errorEnd = tokenEnd;
+                return result;
+            }
+            i = tokenEnd;
+        }
+    }
+
+    /**
+     * Parses an encoded card starting at the given index and followed by a separator or the
+     * end of the line, and records where it ends in tokenEnd.
+     *
+     * @return the ordinal of the card, or -1 if there is no such card at the index
+     */
+    private int parseEncodedToken(CharSequence text, byte[] bytes, int start, int end) {
+        int i = start + PREFIX.length();
+        if (!regionMatches(text, bytes, start, end, PREFIX, PREFIX.length())) {
+            return -1;
+        }
+        int cardNum = 0;
+        char c;
+        while (i < end && (c = charAt(text, bytes, i)) >= '0' && c <= '9' && cardNum <= 14) {
+            cardNum = cardNum * 10 + c - '0';
+            i++;
+        }
+        if (i == start + PREFIX.length() || i == end || charAt(text, bytes, i) != ':' || cardNum < 1) {
+            return -1;
+        }
+        int typeStart = ++i;
+        while (i < end && !isSeparator(charAt(text, bytes, i))) {
+            i++;
+        }
+        int type = matchType(text, bytes, typeStart, i);
+        if (type < 0 || cardNum > 14) {
+            return -1;
+        }
+        int ordinal = toOrdinal(cardNum, type);
+        this.tokenEnd = i;
+        return ordinal;
+    }
+
+    /**
+     * Parses a name=value field, and records its value.
+     *
+     * @return 0, or a negative failure code
+     */
+    private int parseField(CharSequence text, byte[] bytes, int start, int equals, int end) {
+        int field = match(text, bytes, start, equals, FIELD_NAMES, 0);
+        if (field < 0) {
+            return UNKNOWN_FIELD;
+        }
+        int value = parseNumber(text, bytes, equals + 1, end);
+        if (value < 0) {
+            return INVALID_FIELD_VALUE;
+        }
+        this.fields[field] = value;
+        return 0;
+    }
+
+    private static int parseCard(CharSequence text, byte[] bytes, int start, int end) {
+        if (regionMatches(text, bytes, start, end, PREFIX, PREFIX.length())) {
+            return parseEncoded(text, bytes, start + PREFIX.length(), end);
+        }
+        return parseHuman(text, bytes, start, end);
+    }
+
+    /**
+     * Parses the cardNum:cardType part of the encoded form.
+     */
+    private static int parseEncoded(CharSequence text, byte[] bytes, int start, int end) {
+        int colon = start;
+        while (colon < end && charAt(text, bytes, colon) != ':') {
+            colon++;
+        }
+        if (colon == end) {
+            return INVALID_FORMAT;
+        }
+        // Accept a leading plus sign, as Integer.parseInt did
+        int numStart = colon > start && charAt(text, bytes, start) == '+' ? start + 1 : start;
+        int cardNum = parseNumber(text, bytes, numStart, colon);
+        if (cardNum < 1 || cardNum > 14) {
+            return INVALID_NUMBER;
+        }
+        int type = matchType(text, bytes, colon + 1, end);
+        if (type < 0) {
+            return INVALID_TYPE;
+        }
+        return toOrdinal(cardNum, type);
+    }
+
+    /**
+     * Finds the CardType whose name makes up the whole region, telling the types apart by
+     * their first letter before comparing the rest.
+     *
+     * @return the CardType ordinal, or -1 if none matches
+     */
+    private static int matchType(CharSequence text, byte[] bytes, int start, int end) {
+        if (start == end) {
+            return -1;
+        }
+        int type;
+        switch (charAt(text, bytes, start)) {
+            case 'S':
+                type = CardType.SPADE.ordinal();
+                break;
+            case 'C':
+                type = CardType.CLUB.ordinal();
+                break;
+            case 'H':
+                type = CardType.HEART.ordinal();
+                break;
+            case 'D':
+                type = CardType.DIAMOND.ordinal();
+                break;
+            case 'B':
+                type = CardType.BLACK_JOKER.ordinal();
+                break;
+            case 'R':
+                type = CardType.RED_JOKER.ordinal();
+                break;
+            default:
+                return -1;
+        }
+        String name = TYPE_NAMES[type];
+        return name.length() == end - start && regionMatches(text, bytes, start, end, name, name.length()) ? type : -1;
+    }
+
+    /**
+     * Parses the human-readable form, TYPE - NAME or JOKER - COLOUR.
+     */
+    private static int parseHuman(CharSequence text, byte[] bytes, int start, int end) {
+        int firstEnd = start;
+        while (firstEnd < end && isNameChar(charAt(text, bytes, firstEnd))) {
+            firstEnd++;
+        }
+        int second = skipSpaces(text, bytes, firstEnd, end);
+        if (firstEnd == start || second == end || charAt(text, bytes, second) != '-') {
+            return INVALID_FORMAT;
+        }
+        second = skipSpaces(text, bytes, second + 1, end);
+        if (regionMatches(text, bytes, start, firstEnd, JOKER_NAME, JOKER_NAME.length())
+                && firstEnd - start == JOKER_NAME.length()) {
+            int colour = match(text, bytes, second, end, JOKER_COLOURS, 0);
+            if (colour < 0) {
+                return INVALID_TYPE;
+            }
+            return toOrdinal(14, CardType.BLACK_JOKER.ordinal() + colour);
+        }
+        int type = matchType(text, bytes, start, firstEnd);
+        if (type < 0) {
+            return INVALID_TYPE;
+        }
+        int cardNum = match(text, bytes, second, end, NUM_NAMES, 1);
+        if (cardNum < 0) {
+            return INVALID_NUMBER;
+        }
+        return toOrdinal(cardNum, type);
+    }
+
+    /**
+     * Returns the ordinal of the card with the given number and CardType ordinal.
+     *
+     * @return the ordinal, or ILLEGAL_CARD if the number does not match the type
+     */
+    private static int toOrdinal(int cardNum, int type) {
+        boolean isJoker = type >= CardType.BLACK_JOKER.ordinal();
+        if ((cardNum == 14) != isJoker) {
+            return ILLEGAL_CARD;
+        }
+        return isJoker ? 52 + type - CardType.BLACK_JOKER.ordinal() : type * 13 + cardNum - 1;
+    }
+
+    /**
+     * Parses a non-negative decimal number making up the whole region.
+     *
+     * @return the number, or -1 if the region is not a number or is too large
+     */
+    private static int parseNumber(CharSequence text, byte[] bytes, int start, int end) {
+        if (start == end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = charAt(text, bytes, i) - '0';
+            if (digit < 0 || digit > 9 || value > MAX_FIELD_VALUE) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Finds the name which makes up the whole region.
+     *
+     * @return the index of the name, or -1 if none matches
+     */
+    private static int match(CharSequence text, byte[] bytes, int start, int end, String[] names, int from) {
+        for (int i = from; i < names.length; i++) {
+            String name = names[i];
+            if (name.length() == end - start && regionMatches(text, bytes, start, end, name, name.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Determines whether the region starts with the first length characters of the given string.
+     */
+    private static boolean regionMatches(CharSequence text, byte[] bytes, int start, int end,
+                                         String string, int length) {
+        if (end - start < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(text, bytes, start + i) != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpaces(CharSequence text, byte[] bytes, int start, int end) {
+        while (start < end && charAt(text, bytes, start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c < SEPARATORS.length && SEPARATORS[c];
+    }
+
+    private static boolean isNameChar(char c) {
+        return c >= 'A' && c <= 'Z' || c == '_';
+    }
+
+    private static char charAt(CharSequence text, byte[] bytes, int index) {
+        return text != null ? text.charAt(index) : (char) (bytes[index] & 0xFF);
+    }
+}
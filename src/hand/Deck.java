@@ -5,6 +5,7 @@ import util.IllegalCardException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * Represents a deck of playing cards containing 54 cards: 13 from each suit,
@@ -24,12 +25,12 @@ public class Deck {
         try {
             for (CardType type : CardType.values()) {
                 if (type == CardType.BLACK_JOKER) {
-                    deck.add(new Card(14, type));
+                    deck.add(Card.of(14, type));
                 } else if (type == CardType.RED_JOKER) {
-                    deck.add(new Card(14, type));
+                    deck.add(Card.of(14, type));
                 } else {
                     for (int cardNum = 1; cardNum < 14; cardNum++) {
-                        deck.add(new Card(cardNum, type));
+                        deck.add(Card.of(cardNum, type));
                     }
                 }
             }
@@ -59,17 +60,7 @@ public class Deck {
      * @return a shuffled hand of playing cards
      */
     public static List<Card> shuffledHand(int numCards, int numDecks) {
-        List<Card> cards = new ArrayList<>();
-        // Get shuffled decks from which to source cards
-        for (int i = 0; i < numDecks; i++) {
-            cards.addAll(Deck.shuffled());
-        }
-        Collections.shuffle(cards);
-        List<Card> hand = new ArrayList<>();
-        // Add cards from top of shuffled decks to hand
-        for (int i = 0; i < Math.min(numCards, cards.size()); i++) {
-            hand.add(cards.get(i));
-        }
-        return hand;
+        Shoe shoe = new Shoe(numDecks, new PackedHand(), new SplittableRandom());
+        return shoe.deal(Math.min(numCards, shoe.size()));
     }
 }
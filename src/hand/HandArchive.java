@@ -0,0 +1,197 @@
+package hand;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of hands in the binary encoding of PackedHand, all dealt under the same number of
+ * decks and contract.
+ *
+ * The file holds a header of eight ints (MAGIC, VERSION, numDecks, numBooks, numRuns,
+ * PackedHand.ENCODED_SIZE and two reserved zeros, so that hands stay aligned) followed by
+ * the hands, all big-endian. Archives are written by a Writer, and read by memory-mapping the
+ * file in segments of SEGMENT_HANDS hands, so that files larger than 2 GB can be read. Hands
+ * are decoded straight into a PackedHand supplied by the caller, so reading does not allocate.
+ */
+public class HandArchive {
+    public final static int SEGMENT_HANDS = 1 << 25;
+    private final static int MAGIC = 0x48414E44;
+    private final static int VERSION = 1;
+    private final static int HEADER_SIZE = 8 * Integer.BYTES;
+    private final static int RECORD_SIZE = PackedHand.ENCODED_SIZE;
+    private final static int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final int numDecks;
+    private final int numBooks;
+    private final int numRuns;
+    private final long numHands;
+    private final ByteBuffer[] segments;
+
+    private HandArchive(int numDecks, int numBooks, int numRuns, long numHands, ByteBuffer[] segments) {
+        this.numDecks = numDecks;
+        this.numBooks = numBooks;
+        this.numRuns = numRuns;
+        this.numHands = numHands;
+        this.segments = segments;
+    }
+
+    /**
+     * Maps the archive at the given path.
+     *
+     * @param path the path of the archive
+     * @return the mapped archive
+     * @throws IOException if the file cannot be read, or is not a valid archive
+     */
+    public static HandArchive open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException(path + " is not a hand archive");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a hand archive");
+            }
+            if (header.getInt(4) != VERSION || header.getInt(20) != RECORD_SIZE) {
+                throw new IOException(path + " has an unsupported version");
+            }
+            if ((fileSize - HEADER_SIZE) % RECORD_SIZE != 0) {
+                throw new IOException(path + " has the wrong size");
+            }
+            long numHands = (fileSize - HEADER_SIZE) / RECORD_SIZE;
+            ByteBuffer[] segments = new ByteBuffer[Math.toIntExact((numHands + SEGMENT_HANDS - 1) / SEGMENT_HANDS)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = HEADER_SIZE + (long) i * SEGMENT_HANDS * RECORD_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(
+                        (long) SEGMENT_HANDS * RECORD_SIZE, fileSize - start));
+            }
+            return new HandArchive(header.getInt(8), header.getInt(12), header.getInt(16), numHands, segments);
+        }
+    }
+
+    /**
+     * Creates an archive at the given path, replacing any existing file.
+     *
+     * @param path the path of the archive
+     * @param numDecks the number of decks the hands were dealt from
+     * @param numBooks the number of books in the contract
+     * @param numRuns the number of runs in the contract
+     * @return the writer of the hands
+     * @throws IOException if the file cannot be written
+     */
+    public static Writer create(Path path, int numDecks, int numBooks, int numRuns) throws IOException {
+        return new Writer(path, numDecks, numBooks, numRuns);
+    }
+
+    /**
+     * Returns the number of decks the hands were dealt from.
+     *
+     * @return the number of decks
+     */
+    public int getNumDecks() {
+        return this.numDecks;
+    }
+
+    /**
+     * Returns the number of books in the contract.
+     *
+     * @return the number of books
+     */
+    public int getNumBooks() {
+        return this.numBooks;
+    }
+
+    /**
+     * Returns the number of runs in the contract.
+     *
+     * @return the number of runs
+     */
+    public int getNumRuns() {
+        return this.numRuns;
+    }
+
+    /**
+     * Returns the number of hands in the archive.
+     *
+     * @return the number of hands
+     */
+    public long getNumHands() {
+        return this.numHands;
+    }
+
+    /**
+     * Replaces the cards in the given hand with the hand at the given index.
+     *
+     * @param index the index of the hand, from 0 to getNumHands() - 1
+     * @param hand the hand to decode into
+     * @throws IllegalArgumentException if the bytes at the index are not a valid encoded hand
+     */
+    public void read(long index, PackedHand hand) {
+        hand.decode(this.segments[(int) (index / SEGMENT_HANDS)], (int) (index % SEGMENT_HANDS) * RECORD_SIZE);
+    }
+
+    /**
+     * Writes hands to a new archive, buffering them so each hand does not cost a system call.
+     */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private long numHands;
+
+        private Writer(Path path, int numDecks, int numBooks, int numRuns) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.buffer.putInt(MAGIC).putInt(VERSION).putInt(numDecks).putInt(numBooks).putInt(numRuns)
+                    .putInt(RECORD_SIZE).putInt(0).putInt(0);
+        }
+
+        /**
+         * Appends the given hand to the archive.
+         *
+         * @param hand the hand
+         * @throws IOException if the file cannot be written
+         */
+        public void write(PackedHand hand) throws IOException {
+            if (this.buffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            hand.encode(this.buffer);
+            this.numHands++;
+        }
+
+        /**
+         * Returns the number of hands written so far.
+         *
+         * @return the number of hands
+         */
+        public long getNumHands() {
+            return this.numHands;
+        }
+
+        /**
+         * Writes out the buffered hands.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        private void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                this.channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package hand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * An immutable multiset of playing cards, for what-if branching in search code.
+ *
+ * The counters are laid out as in PackedHand (4 bits per card, one word per suit and one for
+ * the jokers), but held in five final fields, so a hand is a single small object. with and
+ * without return a new hand differing in one word, in O(1), and never touch the hand they
+ * are called on, so any number of sibling hands can be made from one parent without copying
+ * it or undoing changes.
+ *
+ * Each hand carries a Zobrist hash: every (card, copy) pair is given a random 64-bit key, and
+ * the hash is the XOR of the keys of the copies held. Adding or removing a copy XORs in a
+ * single key, so the hash is maintained in O(1) and equal hands always have equal hashes,
+ * however they were built. hashCode is taken from it, and equals only compares the counters
+ * when the hashes match.
+ */
+public final class ImmutableHand {
+    public final static ImmutableHand EMPTY = new ImmutableHand(0, 0, 0, 0, 0, 0, 0);
+    private final static int BITS_PER_CARD = 4;
+    private final static long CARD_MASK = 0xFL;
+    private final static int JOKER_WORD = PackedHand.NUM_SUITS;
+    private final static int COPIES_PER_CARD = PackedHand.MAX_COPIES + 1;
+    private final static long ZOBRIST_SEED = 0x52554D4D59L;
+    private final static long[] ZOBRIST_KEYS = new long[Card.NUM_CARDS * COPIES_PER_CARD];
+
+    static {
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED);
+        for (int i = 0; i < ZOBRIST_KEYS.length; i++) {
+            ZOBRIST_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private final long spades;
+    private final long clubs;
+    private final long hearts;
+    private final long diamonds;
+    private final long jokers;
+    private final int size;
+    private final long zobristHash;
+
+    private ImmutableHand(long spades, long clubs, long hearts, long diamonds, long jokers, int size,
+                          long zobristHash) {
+        this.spades = spades;
+        this.clubs = clubs;
+        this.hearts = hearts;
+        this.diamonds = diamonds;
+        this.jokers = jokers;
+        this.size = size;
+        this.zobristHash = zobristHash;
+    }
+
+    /**
+     * Creates a new hand containing the same cards as the given packed hand.
+     *
+     * @param hand the packed hand of cards
+     * @return the immutable equivalent of the given hand
+     */
+    public static ImmutableHand of(PackedHand hand) {
+        long zobristHash = 0;
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            for (int i = hand.count(ordinal) - 1; i >= 0; i--) {
+                zobristHash ^= ZOBRIST_KEYS[ordinal * COPIES_PER_CARD + i];
+            }
+        }
+        return new ImmutableHand(hand.getWord(CardType.SPADE.ordinal()), hand.getWord(CardType.CLUB.ordinal()),
+                hand.getWord(CardType.HEART.ordinal()), hand.getWord(CardType.DIAMOND.ordinal()),
+                hand.getWord(JOKER_WORD), hand.size(), zobristHash);
+    }
+
+    /**
+     * Creates a new hand containing every card in the given list.
+     *
+     * @param cards the list of cards
+     * @return the immutable equivalent of the given list of cards
+     */
+    public static ImmutableHand fromList(List<Card> cards) {
+        return of(PackedHand.fromList(cards));
+    }
+
+    /**
+     * Returns the packed counters of the given suit, or of the jokers if
+     * suitIndex == PackedHand.NUM_SUITS.
+     *
+     * @param suitIndex the CardType ordinal of the suit
+     * @return the packed counters
+     */
+    public long getWord(int suitIndex) {
+        switch (suitIndex) {
+            case 0:
+                return this.spades;
+            case 1:
+                return this.clubs;
+            case 2:
+                return this.hearts;
+            case 3:
+                return this.diamonds;
+            case JOKER_WORD:
+                return this.jokers;
+            default:
+                throw new IndexOutOfBoundsException("No word " + suitIndex);
+        }
+    }
+
+    /**
+     * Returns how many copies of the card with the given ordinal are in this hand.
+     *
+     * @param ordinal the ordinal of the card
+     * @return the number of copies of the card
+     */
+    public int count(int ordinal) {
+        return (int) (getWord(ordinal / PackedHand.NUM_RANKS)
+                >>> (ordinal % PackedHand.NUM_RANKS * BITS_PER_CARD) & CARD_MASK);
+    }
+
+    /**
+     * Returns how many copies of the given card are in this hand.
+     *
+     * @param card the card
+     * @return the number of copies of the card
+     */
+    public int count(Card card) {
+        return count(card.getOrdinal());
+    }
+
+    /**
+     * Returns the number of jokers in this hand.
+     *
+     * @return the number of jokers
+     */
+    public int numJokers() {
+        return (int) ((this.jokers & CARD_MASK) + (this.jokers >>> BITS_PER_CARD & CARD_MASK));
+    }
+
+    /**
+     * Returns the total number of cards in this hand.
+     *
+     * @return the number of cards
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns true if this hand holds no cards.
+     *
+     * @return true if empty. False otherwise.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the Zobrist hash of this hand.
+     *
+     * @return the 64-bit hash
+     */
+    public long getZobristHash() {
+        return this.zobristHash;
+    }
+
+    /**
+     * Returns a hand holding this hand's cards and one more copy of the card with the given
+     * ordinal.
+     *
+     * @param ordinal the ordinal of the card
+     * @return the new hand
+     * @throws IllegalStateException if this hand already holds MAX_COPIES of the card
+     */
+    public ImmutableHand with(int ordinal) {
+        int count = count(ordinal);
+        if (count == PackedHand.MAX_COPIES) {
+            throw new IllegalStateException("Too many copies of card: " + Card.fromOrdinal(ordinal));
+        }
+        return change(ordinal, 1, this.size + 1, this.zobristHash ^ ZOBRIST_KEYS[ordinal * COPIES_PER_CARD + count]);
+    }
+
+    /**
+     * Returns a hand holding this hand's cards and one more copy of the given card.
+     *
+     * @param card the card to add
+     * @return the new hand
+     * @throws IllegalStateException if this hand already holds MAX_COPIES of the card
+     */
+    public ImmutableHand with(Card card) {
+        return with(card.getOrdinal());
+    }
+
+    /**
+     * Returns a hand holding this hand's cards less one copy of the card with the given
+     * ordinal. If this hand does not hold the card, this hand is returned.
+     *
+     * @param ordinal the ordinal of the card
+     * @return the new hand, or this hand if it does not hold the card
+     */
+    public ImmutableHand without(int ordinal) {
+        int count = count(ordinal);
+        if (count == 0) {
+            return this;
+        }
+        return change(ordinal, -1, this.size - 1,
+                this.zobristHash ^ ZOBRIST_KEYS[ordinal * COPIES_PER_CARD + count - 1]);
+    }
+
+    /**
+     * Returns a hand holding this hand's cards less one copy of the given card. If this hand
+     * does not hold the card, this hand is returned.
+     *
+     * @param card the card to remove
+     * @return the new hand, or this hand if it does not hold the card
+     */
+    public ImmutableHand without(Card card) {
+        return without(card.getOrdinal());
+    }
+
+    /**
+     * Returns a hand whose counter of the given card differs from this hand's by delta.
+     *
+     * @param ordinal the ordinal of the card
+     * @param delta the change to the counter
+     * @param size the size of the new hand
+     * @param zobristHash the hash of the new hand
+     * @return the new hand
+     */
+    private ImmutableHand change(int ordinal, int delta, int size, long zobristHash) {
+        long change = (long) delta << (ordinal % PackedHand.NUM_RANKS * BITS_PER_CARD);
+        switch (ordinal / PackedHand.NUM_RANKS) {
+            case 0:
+                return new ImmutableHand(this.spades + change, this.clubs, this.hearts, this.diamonds, this.jokers,
+                        size, zobristHash);
+            case 1:
+                return new ImmutableHand(this.spades, this.clubs + change, this.hearts, this.diamonds, this.jokers,
+                        size, zobristHash);
+            case 2:
+                return new ImmutableHand(this.spades, this.clubs, this.hearts + change, this.diamonds, this.jokers,
+                        size, zobristHash);
+            case 3:
+                return new ImmutableHand(this.spades, this.clubs, this.hearts, this.diamonds + change, this.jokers,
+                        size, zobristHash);
+            default:
+                return new ImmutableHand(this.spades, this.clubs, this.hearts, this.diamonds, this.jokers + change,
+                        size, zobristHash);
+        }
+    }
+
+    /**
+     * Returns a new packed hand containing the same cards as this hand.
+     *
+     * @return the packed equivalent of this hand
+     */
+    public PackedHand toPackedHand() {
+        return new PackedHand(new long[] {this.spades, this.clubs, this.hearts, this.diamonds, this.jokers},
+                this.size);
+    }
+
+    /**
+     * Returns the list of cards in this hand, in the same order as PackedHand.toList().
+     *
+     * @return the list of cards in this hand
+     */
+    public List<Card> toList() {
+        List<Card> cards = new ArrayList<>(this.size);
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            for (int i = count(ordinal); i > 0; i--) {
+                cards.add(Card.fromOrdinal(ordinal));
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * Determine whether the two hands are equal.
+     *
+     * Two hands are only considered equal if they hold the same number of copies of
+     * every card.
+     *
+     * @param o other object to check for equality.
+     * @return true if two hands are equal. False otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof ImmutableHand) {
+            ImmutableHand other = (ImmutableHand) o;
+            return this.zobristHash == other.zobristHash && this.spades == other.spades
+                    && this.clubs == other.clubs && this.hearts == other.hearts
+                    && this.diamonds == other.diamonds && this.jokers == other.jokers;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.zobristHash);
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
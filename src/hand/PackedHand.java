@@ -0,0 +1,353 @@
+package hand;
+
+import util.BinaryEncodable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A multiset of playing cards packed into a handful of longs.
+ *
+ * Each distinct card is given a 4-bit counter, so up to 15 copies of the same card
+ * may be held at once. The counters for each suit occupy the lower 52 bits of one word
+ * (ACE in the lowest nibble, KING in the highest), and the BLACK JOKER and RED JOKER
+ * counters occupy the two lowest nibbles of a fifth word.
+ *
+ * Adding, removing and counting cards are O(1) and do not allocate.
+ *
+ * The binary encoding is the four suit words as big-endian longs, ENCODED_SIZE bytes in all,
+ * with the joker counters stored in the unused bits above the counters of the first suit.
+ */
+public class PackedHand implements BinaryEncodable {
+    public final static int NUM_SUITS = 4;
+    public final static int NUM_RANKS = 13;
+    public final static int MAX_COPIES = 15;
+    public final static int ENCODED_SIZE = NUM_SUITS * Long.BYTES;
+    private final static int JOKER_WORD = NUM_SUITS;
+    private final static int BITS_PER_CARD = 4;
+    private final static long CARD_MASK = 0xFL;
+    private final static int JOKER_SHIFT = NUM_RANKS * BITS_PER_CARD;
+    private final static long SUIT_MASK = (1L << JOKER_SHIFT) - 1;
+    private final static long NIBBLE_MASK = 0x0F0F0F0F0F0F0F0FL;
+
+    private final long[] words;
+    private int size;
+
+    /**
+     * Instantiates a new empty hand.
+     */
+    public PackedHand() {
+        this.words = new long[NUM_SUITS + 1];
+        this.size = 0;
+    }
+
+    /**
+     * Instantiates a new hand containing the same cards as the given hand.
+     *
+     * @param other the hand to copy
+     */
+    public PackedHand(PackedHand other) {
+        this.words = Arrays.copyOf(other.words, other.words.length);
+        this.size = other.size;
+    }
+
+    /**
+     * Instantiates a new hand with the given packed counters.
+     *
+     * @param words the packed counters of each suit and of the jokers (which are not copied)
+     * @param size the number of cards counted
+     */
+    PackedHand(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * Creates a new hand containing every card in the given list.
+     *
+     * @param cards the list of cards
+     * @return the packed equivalent of the given list of cards
+     */
+    public static PackedHand fromList(List<Card> cards) {
+        PackedHand hand = new PackedHand();
+        for (Card card : cards) {
+            hand.add(card);
+        }
+        return hand;
+    }
+
+    /**
+     * Returns how many copies of the card with the given ordinal are in this hand.
+     *
+     * @param ordinal the ordinal of the card
+     * @return the number of copies of the card
+     */
+    public int count(int ordinal) {
+        return (int) (this.words[ordinal / NUM_RANKS]
+                >>> (ordinal % NUM_RANKS * BITS_PER_CARD) & CARD_MASK);
+    }
+
+    /**
+     * Returns how many copies of the given card are in this hand.
+     *
+     * @param card the card
+     * @return the number of copies of the card
+     */
+    public int count(Card card) {
+        return count(card.getOrdinal());
+    }
+
+    /**
+     * Returns how many cards with the given number and suit are in this hand.
+     *
+     * @param cardNum the card number (1 to 13)
+     * @param suit the suit
+     * @return the number of copies of the card
+     */
+    public int count(int cardNum, CardType suit) {
+        return (int) (this.words[suit.ordinal()]
+                >>> ((cardNum - 1) * BITS_PER_CARD) & CARD_MASK);
+    }
+
+    /**
+     * Returns how many cards with the given number are in this hand, across all suits.
+     * Ignores jokers.
+     *
+     * @param cardNum the card number (1 to 13)
+     * @return the number of cards with the given number
+     */
+    public int countNum(int cardNum) {
+        int shift = (cardNum - 1) * BITS_PER_CARD;
+        int total = 0;
+        for (int suit = 0; suit < NUM_SUITS; suit++) {
+            total += (int) (this.words[suit] >>> shift & CARD_MASK);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of jokers in this hand.
+     *
+     * @return the number of jokers
+     */
+    public int numJokers() {
+        long jokers = this.words[JOKER_WORD];
+        return (int) ((jokers & CARD_MASK) + (jokers >>> BITS_PER_CARD & CARD_MASK));
+    }
+
+    /**
+     * Returns the total number of cards in this hand.
+     *
+     * @return the number of cards
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns true if this hand holds no cards.
+     *
+     * @return true if empty. False otherwise.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Adds a copy of the card with the given ordinal to this hand.
+     *
+     * @param ordinal the ordinal of the card
+     * @throws IllegalStateException if the hand already holds MAX_COPIES of the card
+     */
+    public void add(int ordinal) {
+        if (count(ordinal) == MAX_COPIES) {
+            throw new IllegalStateException("Too many copies of card: " + Card.fromOrdinal(ordinal));
+        }
+        this.words[ordinal / NUM_RANKS] += 1L << (ordinal % NUM_RANKS * BITS_PER_CARD);
+        this.size++;
+    }
+
+    /**
+     * Adds a copy of the given card to this hand.
+     *
+     * @param card the card to add
+     * @throws IllegalStateException if the hand already holds MAX_COPIES of the card
+     */
+    public void add(Card card) {
+        add(card.getOrdinal());
+    }
+
+    /**
+     * Removes a copy of the card with the given ordinal from this hand, if present.
+     *
+     * @param ordinal the ordinal of the card
+     * @return true if a card was removed. False otherwise.
+     */
+    public boolean remove(int ordinal) {
+        if (count(ordinal) == 0) {
+            return false;
+        }
+        this.words[ordinal / NUM_RANKS] -= 1L << (ordinal % NUM_RANKS * BITS_PER_CARD);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Removes a copy of the given card from this hand, if present.
+     *
+     * @param card the card to remove
+     * @return true if a card was removed. False otherwise.
+     */
+    public boolean remove(Card card) {
+        return remove(card.getOrdinal());
+    }
+
+    /**
+     * Adds every card in the given hand to this hand.
+     *
+     * @param other the hand whose cards are added
+     * @throws IllegalStateException if this hand would hold more than MAX_COPIES of a card
+     */
+    public void addAll(PackedHand other) {
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            for (int i = other.count(ordinal); i > 0; i--) {
+                add(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Replaces the cards in this hand with the cards in the given hand.
+     *
+     * @param other the hand to copy
+     */
+    public void set(PackedHand other) {
+        System.arraycopy(other.words, 0, this.words, 0, this.words.length);
+        this.size = other.size;
+    }
+
+    /**
+     * Removes every card from this hand.
+     */
+    public void clear() {
+        Arrays.fill(this.words, 0);
+        this.size = 0;
+    }
+
+    /**
+     * Removes every card in the given bases from this hand.
+     *
+     * @param bases the list of bases
+     */
+    public void removeBases(List<List<Card>> bases) {
+        for (List<Card> basis : bases) {
+            for (Card card : basis) {
+                remove(card);
+            }
+        }
+    }
+
+    /**
+     * Returns the packed counters of the given suit, or of the jokers if
+     * suitIndex == NUM_SUITS.
+     *
+     * @param suitIndex the CardType ordinal of the suit
+     * @return the packed counters
+     */
+    public long getWord(int suitIndex) {
+        return this.words[suitIndex];
+    }
+
+    @Override
+    public void encode(ByteBuffer buffer) {
+        buffer.putLong(this.words[0] | this.words[JOKER_WORD] << JOKER_SHIFT);
+        for (int suit = 1; suit < NUM_SUITS; suit++) {
+            buffer.putLong(this.words[suit]);
+        }
+    }
+
+    /**
+     * Replaces the cards in this hand with the hand encoded at the given offset of the buffer,
+     * without changing the buffer's position.
+     *
+     * @param buffer the buffer to read from
+     * @param offset the offset of the encoded hand
+     * @throws IllegalArgumentException if the bytes are not a valid encoded hand
+     */
+    public void decode(ByteBuffer buffer, int offset) {
+        long first = buffer.getLong(offset);
+        long jokers = first >>> JOKER_SHIFT;
+        if (jokers >>> (2 * BITS_PER_CARD) != 0) {
+            throw new IllegalArgumentException("Not a valid encoded hand at offset " + offset);
+        }
+        this.words[0] = first & SUIT_MASK;
+        this.words[JOKER_WORD] = jokers;
+        int size = countCards(this.words[0]) + countCards(jokers);
+        for (int suit = 1; suit < NUM_SUITS; suit++) {
+            long word = buffer.getLong(offset + suit * Long.BYTES);
+            if ((word & ~SUIT_MASK) != 0) {
+                throw new IllegalArgumentException("Not a valid encoded hand at offset " + offset);
+            }
+            this.words[suit] = word;
+            size += countCards(word);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Sums the counters packed in the given word.
+     *
+     * @param word the packed counters
+     * @return the number of cards counted by the word
+     */
+    private static int countCards(long word) {
+        // Add adjacent counters into bytes (at most 30 each), then add up the bytes
+        long pairs = (word & NIBBLE_MASK) + (word >>> BITS_PER_CARD & NIBBLE_MASK);
+        return (int) (pairs * 0x0101010101010101L >>> 56);
+    }
+
+    /**
+     * Returns the list of cards in this hand, ordered by suit (in CardType order), then by
+     * card number, followed by the jokers.
+     *
+     * @return the list of cards in this hand
+     */
+    public List<Card> toList() {
+        List<Card> cards = new ArrayList<>(this.size);
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            for (int i = count(ordinal); i > 0; i--) {
+                cards.add(Card.fromOrdinal(ordinal));
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * Determine whether the two hands are equal.
+     *
+     * Two hands are only considered equal if they hold the same number of copies of
+     * every card.
+     *
+     * @param o other object to check for equality.
+     * @return true if two hands are equal. False otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof PackedHand) {
+            return Arrays.equals(this.words, ((PackedHand) o).words);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.words);
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,186 @@
+package hand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A reusable shoe of card ordinals from a number of decks, which deals cards at random
+ * without creating any Card objects.
+ *
+ * Cards are dealt by a partial Fisher-Yates shuffle: each card is drawn by swapping a random
+ * undealt card to the front of the undealt cards, so dealing k cards takes k random numbers
+ * however large the shoe. As drawing only reorders the array, reset returns every dealt card
+ * to the shoe at no cost. Randomness comes from a SplittableRandom, so a shoe created with a
+ * seed always deals the same cards, and split gives parallel workers their own shoes with
+ * independent, reproducible streams.
+ *
+ * A shoe is not thread-safe.
+ */
+public class Shoe {
+    private final int numDecks;
+    private final int[] cards;
+    private final SplittableRandom random;
+    private int numDealt;
+
+    /**
+     * Instantiates a new shoe holding every card of the given number of decks.
+     *
+     * @param numDecks the number of decks
+     * @param seed the seed of the random stream
+     */
+    public Shoe(int numDecks, long seed) {
+        this(numDecks, new PackedHand(), new SplittableRandom(seed));
+    }
+
+    /**
+     * Instantiates a new shoe holding every card of the given number of decks except those in
+     * the given hand (as far as the decks hold them).
+     *
+     * @param numDecks the number of decks
+     * @param excluded the cards left out of the shoe
+     * @param random the random stream cards are dealt with
+     */
+    public Shoe(int numDecks, PackedHand excluded, SplittableRandom random) {
+        int numCards = 0;
+        int[] cards = new int[Card.NUM_CARDS * numDecks];
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            for (int i = excluded.count(ordinal); i < numDecks; i++) {
+                cards[numCards++] = ordinal;
+            }
+        }
+        this.numDecks = numDecks;
+        this.cards = numCards == cards.length ? cards : Arrays.copyOf(cards, numCards);
+        this.random = random;
+    }
+
+    private Shoe(Shoe other, SplittableRandom random) {
+        this.numDecks = other.numDecks;
+        this.cards = other.cards.clone();
+        this.numDealt = other.numDealt;
+        this.random = random;
+    }
+
+    /**
+     * Returns a new shoe holding the same cards, with the same cards dealt, and a random
+     * stream split from this shoe's.
+     *
+     * @return the new shoe
+     */
+    public Shoe split() {
+        return new Shoe(this, this.random.split());
+    }
+
+    /**
+     * Returns the number of decks the shoe was made from.
+     *
+     * @return the number of decks
+     */
+    public int getNumDecks() {
+        return this.numDecks;
+    }
+
+    /**
+     * Returns the number of cards in the shoe, dealt or not.
+     *
+     * @return the number of cards
+     */
+    public int size() {
+        return this.cards.length;
+    }
+
+    /**
+     * Returns the number of cards which have not been dealt.
+     *
+     * @return the number of cards remaining
+     */
+    public int getNumRemaining() {
+        return this.cards.length - this.numDealt;
+    }
+
+    /**
+     * Returns every dealt card to the shoe.
+     */
+    public void reset() {
+        this.numDealt = 0;
+    }
+
+    /**
+     * Deals a random card.
+     *
+     * @return the ordinal of the card
+     * @throws IllegalStateException if every card has been dealt
+     */
+    public int draw() {
+        if (this.numDealt == this.cards.length) {
+            throw new IllegalStateException("The shoe is empty");
+        }
+        int swap = this.numDealt + this.random.nextInt(this.cards.length - this.numDealt);
+        int ordinal = this.cards[swap];
+        this.cards[swap] = this.cards[this.numDealt];
+        this.cards[this.numDealt++] = ordinal;
+        return ordinal;
+    }
+
+    /**
+     * Deals the given number of random cards into a hand.
+     *
+     * @param hand the hand the cards are added to
+     * @param numCards the number of cards
+     * @throws IllegalStateException if fewer cards remain
+     */
+    public void deal(PackedHand hand, int numCards) {
+        checkRemaining(numCards);
+        for (int i = 0; i < numCards; i++) {
+            hand.add(draw());
+        }
+    }
+
+    /**
+     * Deals the given number of random cards as a list, in the order dealt.
+     *
+     * @param numCards the number of cards
+     * @return the list of cards
+     * @throws IllegalStateException if fewer cards remain
+     */
+    public List<Card> deal(int numCards) {
+        checkRemaining(numCards);
+        List<Card> cards = new ArrayList<>(numCards);
+        for (int i = 0; i < numCards; i++) {
+            cards.add(Card.fromOrdinal(draw()));
+        }
+        return cards;
+    }
+
+    /**
+     * Deals a hand of the given size to each of the given (emptied) hands in turn, then deals
+     * every remaining card, in random order, into the stock.
+     *
+     * @param hands the hands, which are cleared first
+     * @param handSize the number of cards in each hand
+     * @param stock the array the stock is written to, from index 0, which must have room for
+     *              every remaining card
+     * @return the number of cards in the stock
+     * @throws IllegalStateException if there are not enough cards for the hands
+     */
+    public int deal(PackedHand[] hands, int handSize, int[] stock) {
+        checkRemaining(hands.length * handSize);
+        for (PackedHand hand : hands) {
+            hand.clear();
+            deal(hand, handSize);
+        }
+        int stockSize = getNumRemaining();
+        for (int i = 0; i < stockSize; i++) {
+            stock[i] = draw();
+        }
+        return stockSize;
+    }
+
+    private void checkRemaining(int numCards) {
+        if (numCards > getNumRemaining()) {
+            throw new IllegalStateException("Cannot deal " + numCards + " cards from a shoe of "
+                    + getNumRemaining());
+        }
+    }
+}
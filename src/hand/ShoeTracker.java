@@ -0,0 +1,115 @@
+package hand;
+
+import java.util.Arrays;
+
+/**
+ * Tracks how many copies of each card remain in a shoe of a given number of decks, as cards
+ * are seen leaving it: discarded, bought or melded by other players.
+ *
+ * The player's own hand is not tracked, but given to the queries, so that a card is unseen if
+ * it has neither been removed from the shoe nor is held in the hand. Removing cards and
+ * counting the unseen copies of a card are O(1); the total number of unseen cards is a single
+ * pass over the 54 distinct cards, after which the probability of drawing any card is O(1).
+ */
+public class ShoeTracker {
+    private final int numDecks;
+    private final int[] remaining;
+    private int numRemaining;
+
+    /**
+     * Instantiates a new tracker of a full shoe of the given number of decks.
+     *
+     * @param numDecks the number of decks
+     */
+    public ShoeTracker(int numDecks) {
+        this.numDecks = numDecks;
+        this.remaining = new int[Card.NUM_CARDS];
+        Arrays.fill(this.remaining, numDecks);
+        this.numRemaining = numDecks * Card.NUM_CARDS;
+    }
+
+    /**
+     * Returns the number of decks in the shoe.
+     *
+     * @return the number of decks
+     */
+    public int getNumDecks() {
+        return this.numDecks;
+    }
+
+    /**
+     * Removes copies of a card from the shoe.
+     *
+     * @param ordinal the ordinal of the card
+     * @param num the number of copies
+     * @return false, removing nothing, if fewer copies remain. True otherwise
+     */
+    public boolean remove(int ordinal, int num) {
+        if (this.remaining[ordinal] < num) {
+            return false;
+        }
+        this.remaining[ordinal] -= num;
+        this.numRemaining -= num;
+        return true;
+    }
+
+    /**
+     * Returns the number of copies of a card which have not been removed from the shoe.
+     *
+     * @param ordinal the ordinal of the card
+     * @return the number of copies remaining
+     */
+    public int getRemaining(int ordinal) {
+        return this.remaining[ordinal];
+    }
+
+    /**
+     * Returns the number of cards which have not been removed from the shoe.
+     *
+     * @return the number of cards remaining
+     */
+    public int getNumRemaining() {
+        return this.numRemaining;
+    }
+
+    /**
+     * Returns the number of copies of a card which are neither removed from the shoe nor
+     * held in the given hand.
+     *
+     * @param ordinal the ordinal of the card
+     * @param hand the player's hand
+     * @return the number of unseen copies
+     */
+    public int getUnseen(int ordinal, PackedHand hand) {
+        return Math.max(0, this.remaining[ordinal] - hand.count(ordinal));
+    }
+
+    /**
+     * Returns the number of cards which are neither removed from the shoe nor held in the
+     * given hand.
+     *
+     * @param hand the player's hand
+     * @return the number of unseen cards
+     */
+    public int getNumUnseen(PackedHand hand) {
+        int numUnseen = this.numRemaining;
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            // Cards held beyond the copies remaining were not dealt from this shoe
+            numUnseen -= Math.min(this.remaining[ordinal], hand.count(ordinal));
+        }
+        return numUnseen;
+    }
+
+    /**
+     * Returns the probability that the next card drawn is the given card, assuming every
+     * unseen card is equally likely to be drawn.
+     *
+     * @param ordinal the ordinal of the card
+     * @param hand the player's hand
+     * @param numUnseen the number of unseen cards, as given by getNumUnseen(hand)
+     * @return the probability of drawing the card
+     */
+    public double getDrawProbability(int ordinal, PackedHand hand, int numUnseen) {
+        return numUnseen == 0 ? 0 : getUnseen(ordinal, hand) / (double) numUnseen;
+    }
+}
@@ -0,0 +1,422 @@
+package server;
+
+import algorithms.Algorithm;
+import algorithms.AnytimeAlgorithm;
+import algorithms.DiscardAlgorithm;
+import algorithms.EvaluationCache;
+import algorithms.HandEvaluator;
+import algorithms.SolverResult;
+import algorithms.Strategy;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hand.Card;
+import hand.CardParser;
+import hand.PackedHand;
+import ui.Command;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local HTTP service answering the same questions as the build, buy, discard and score
+ * commands, so one process can advise many tables.
+ *
+ * Each endpoint takes a POST with a JSON object holding the hand, either as an array of card
+ * names or as a single string of cards in the format read by CardParser (without its
+ * books=, runs= or decks= fields), along with the optional fields books, runs (0 by default)
+ * and strategy ("greedy" or "exact", the default):
+ *
+ *   /build    returns the best bases as "books" and "runs", and the number of cards "missing".
+ *             Given a "budget" in microseconds, the bases are found by AnytimeAlgorithm
+ *             within it instead, and whether they are proven "optimal" is returned too.
+ *   /buy      given a "card", returns whether to "buy" it, with the cards "missing" before and
+ *             after. Without one, returns the "ranking" of every card by its "improvement".
+ *   /discard  returns the best "discard". Given the "option" "score", returns the highest
+ *             scoring card outside the bases, and given "all", the "ranking" of every discard
+ *             by the cards "missing" after it.
+ *   /score    returns the "score" of the hand
+ *
+ * Cards are returned in their encoded form. Invalid requests are answered with status 400
+ * and an "error" message. Requests are handled on virtual threads when the JVM provides them
+ * (Java 21 or later), and on a cached thread pool otherwise. Bases are shared between
+ * requests through an EvaluationCache.
+ *
+ * Usage: --server [port]
+ */
+public class AdvisoryServer {
+    public final static int DEFAULT_PORT = 8080;
+    public final static int MAX_BODY_SIZE = 1 << 16;
+    public final static int MAX_HAND_SIZE = 60;
+    public final static long MAX_BUDGET_MICROS = 10_000_000;
+    private final static int BACKLOG = 1024;
+    private final static String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean usesVirtualThreads;
+    private final EvaluationCache cache = new EvaluationCache();
+
+    /**
+     * Instantiates a new server listening on the given port of the loopback address.
+     *
+     * Small responses are held back by Nagle's algorithm and delayed ACKs, about 40 ms each,
+     * unless the JVM-wide sun.net.httpserver.nodelay property was set to true before the
+     * first HttpServer was created. main sets it, but the constructor leaves it alone, so a
+     * program embedding the server should set it itself.
+     *
+     * @param port the port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public AdvisoryServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        ExecutorService executor = newVirtualThreadExecutor();
+        this.usesVirtualThreads = executor != null;
+        this.executor = executor != null ? executor : Executors.newCachedThreadPool();
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/build", exchange -> handle(exchange, this::build));
+        this.server.createContext("/buy", exchange -> handle(exchange, this::buy));
+        this.server.createContext("/discard", exchange -> handle(exchange, this::discard));
+        this.server.createContext("/score", exchange -> handle(exchange, this::score));
+    }
+
+    /**
+     * Runs the server until the process is stopped.
+     *
+     * @param args the command line arguments (after --server)
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        if (args.length > 0) {
+            port = Command.parsePosInt(args[0]);
+            if (port == Command.INVALID_INT) {
+                return;
+            }
+        }
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+        try {
+            AdvisoryServer server = new AdvisoryServer(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+            System.out.printf("Listening on http://%s:%d/ (%s)\n", InetAddress.getLoopbackAddress().getHostAddress(),
+                    server.getPort(), server.usesVirtualThreads() ? "virtual threads" : "thread pool");
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Stops accepting requests, and waits up to a second for requests in progress.
+     */
+    public void stop() {
+        this.server.stop(1);
+        this.executor.shutdown();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Returns true if requests are handled on virtual threads.
+     *
+     * @return true if using virtual threads. False if using a thread pool.
+     */
+    public boolean usesVirtualThreads() {
+        return this.usesVirtualThreads;
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task, if the JVM supports them.
+     * Reflection keeps the sources compatible with Java 11.
+     *
+     * @return the executor, or null if virtual threads are not supported
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Answers a request with the given endpoint.
+     *
+     * @param exchange the request and response
+     * @param endpoint the endpoint
+     * @throws IOException if the response cannot be sent
+     */
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        int status = 200;
+        StringBuilder response = new StringBuilder();
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                status = 405;
+                response.append("{\"error\":\"expecting a POST request\"}");
+            } else {
+                Request request = new Request(readBody(exchange));
+                endpoint.respond(request, response);
+            }
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            response.setLength(0);
+            Json.quote(response.append("{\"error\":"), e.getMessage()).append('}');
+        } catch (RuntimeException e) {
+            status = 500;
+            response.setLength(0);
+            Json.quote(response.append("{\"error\":"), String.valueOf(e)).append('}');
+        }
+        byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Reads the body of a request, up to MAX_BODY_SIZE bytes.
+     *
+     * @param exchange the request and response
+     * @return the body
+     * @throws IOException if the body cannot be read
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] body = input.readNBytes(MAX_BODY_SIZE + 1);
+            if (body.length > MAX_BODY_SIZE) {
+                throw new IllegalArgumentException("request body is larger than " + MAX_BODY_SIZE + " bytes");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private void build(Request request, StringBuilder response) {
+        Object budget = request.body.get("budget");
+        Map<String, List<List<Card>>> bases;
+        SolverResult result = null;
+        if (budget == null) {
+            bases = this.cache.getOptimalBases(request.hand, request.numBooks, request.numRuns, request.strategy);
+        } else if (budget instanceof Long && (Long) budget >= 0 && (Long) budget <= MAX_BUDGET_MICROS) {
+            result = AnytimeAlgorithm.getOptimalBases(request.hand, request.numBooks, request.numRuns,
+                    (Long) budget * 1000, Long.MAX_VALUE);
+            bases = result.getBases();
+        } else {
+            throw new IllegalArgumentException("\"budget\" must be an integer from 0 to " + MAX_BUDGET_MICROS);
+        }
+        response.append("{\"books\":");
+        appendBases(response, bases.getOrDefault("Books", List.of()));
+        response.append(",\"runs\":");
+        appendBases(response, bases.getOrDefault("Runs", List.of()));
+        response.append(",\"missing\":").append(Algorithm.numCardsMissing(bases, request.numBooks, request.numRuns));
+        if (result != null) {
+            response.append(",\"optimal\":").append(result.isOptimal());
+        }
+        response.append('}');
+    }
+
+    private void buy(Request request, StringBuilder response) {
+        Object cardName = request.body.get("card");
+        if (cardName == null) {
+            Map<Card, Integer> ranking = Algorithm.rankDraws(request.hand, request.numBooks, request.numRuns,
+                    request.strategy);
+            appendRanking(response, ranking, "improvement");
+            return;
+        }
+        Card card = parseCard(cardName);
+        HandEvaluator evaluator = new HandEvaluator(request.hand, request.numBooks, request.numRuns,
+                request.strategy);
+        int missing = evaluator.numCardsMissing();
+        int missingWith = evaluator.numCardsMissingWith(card);
+        response.append("{\"buy\":").append(missingWith < missing)
+                .append(",\"missing\":").append(missing)
+                .append(",\"missingWith\":").append(missingWith).append('}');
+    }
+
+    private void discard(Request request, StringBuilder response) {
+        Object option = request.body.getOrDefault("option", "");
+        Card discard;
+        if (option.equals("")) {
+            discard = DiscardAlgorithm.getBestDiscard(new HandEvaluator(request.hand, request.numBooks,
+                    request.numRuns, request.strategy));
+        } else if (option.equals("all")) {
+            appendRanking(response, DiscardAlgorithm.rankDiscards(request.hand, request.numBooks, request.numRuns,
+                    request.strategy), "missing");
+            return;
+        } else if (option.equals("score")) {
+            Map<String, List<List<Card>>> bases = this.cache.getOptimalBases(request.hand, request.numBooks,
+                    request.numRuns, request.strategy);
+            PackedHand remaining = new PackedHand(request.hand);
+            for (List<List<Card>> stacks : bases.values()) {
+                remaining.removeBases(stacks);
+            }
+            discard = Card.getBestDiscard(remaining.toList());
+        } else {
+            throw new IllegalArgumentException("not a valid discard option: " + option);
+        }
+        response.append("{\"discard\":");
+        if (discard == null) {
+            response.append("null");
+        } else {
+            Json.quote(response, discard.encode());
+        }
+        response.append('}');
+    }
+
+    private void score(Request request, StringBuilder response) {
+        response.append("{\"score\":").append(Algorithm.getScore(request.hand.toList())).append('}');
+    }
+
+    private static void appendBases(StringBuilder response, List<List<Card>> bases) {
+        response.append('[');
+        for (int i = 0; i < bases.size(); i++) {
+            response.append(i == 0 ? "[" : ",[");
+            List<Card> basis = bases.get(i);
+            for (int j = 0; j < basis.size(); j++) {
+                if (j > 0) {
+                    response.append(',');
+                }
+                Json.quote(response, basis.get(j).encode());
+            }
+            response.append(']');
+        }
+        response.append(']');
+    }
+
+    private static void appendRanking(StringBuilder response, Map<Card, Integer> ranking, String valueName) {
+        response.append("{\"ranking\":[");
+        boolean first = true;
+        for (Map.Entry<Card, Integer> entry : ranking.entrySet()) {
+            response.append(first ? "{\"card\":" : ",{\"card\":");
+            Json.quote(response, entry.getKey().encode());
+            response.append(",\"").append(valueName).append("\":").append(entry.getValue()).append('}');
+            first = false;
+        }
+        response.append("]}");
+    }
+
+    /**
+     * Parses a card name from a request.
+     *
+     * @param name the JSON value holding the name
+     * @return the card
+     * @throws IllegalArgumentException if the value is not a valid card name
+     */
+    private static Card parseCard(Object name) {
+        if (!(name instanceof String)) {
+            throw new IllegalArgumentException("expecting a card name, but found " + name);
+        }
+        String string = (String) name;
+        int ordinal = CardParser.parse(string, 0, string.length());
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("'" + string + "': " + CardParser.describe(ordinal));
+        }
+        return Card.fromOrdinal(ordinal);
+    }
+
+    /**
+     * An endpoint, which writes its response for a valid request.
+     */
+    private interface Endpoint {
+        /**
+         * Writes the response to the given request.
+         *
+         * @param request the request
+         * @param response the builder of the JSON response
+         * @throws IllegalArgumentException if the request is not valid
+         */
+        void respond(Request request, StringBuilder response);
+    }
+
+    /**
+     * The hand and contract of a request.
+     */
+    private static class Request {
+        private final Map<String, Object> body;
+        private final PackedHand hand = new PackedHand();
+        private final int numBooks;
+        private final int numRuns;
+        private final Strategy strategy;
+
+        @SuppressWarnings("unchecked")
+        private Request(String text) {
+            Object body = Json.parse(text);
+            if (!(body instanceof Map)) {
+                throw new IllegalArgumentException("expecting a JSON object");
+            }
+            this.body = (Map<String, Object>) body;
+            Object cards = this.body.get("hand");
+            if (cards instanceof String) {
+                CardParser parser = new CardParser();
+                String line = (String) cards;
+                int result = parser.parseLine(line, this.hand);
+                if (result < 0) {
+                    throw new IllegalArgumentException("'" + line.substring(parser.getErrorStart(),
+                            parser.getErrorEnd()) + "': " + CardParser.describe(result));
+                }
+                if (parser.getNumBooks() != CardParser.NOT_SET || parser.getNumRuns() != CardParser.NOT_SET
+                        || parser.getNumDecks() != CardParser.NOT_SET) {
+                    throw new IllegalArgumentException("the \"hand\" must only hold cards: give the contract as "
+                            + "\"books\" and \"runs\" fields");
+                }
+            } else if (cards instanceof List) {
+                for (Object name : (List<Object>) cards) {
+                    Card card = parseCard(name);
+                    if (this.hand.size() == MAX_HAND_SIZE || this.hand.count(card) == PackedHand.MAX_COPIES) {
+                        throw new IllegalArgumentException("hands are limited to " + MAX_HAND_SIZE
+                                + " cards, and " + PackedHand.MAX_COPIES + " copies of each");
+                    }
+                    this.hand.add(card);
+                }
+            } else {
+                throw new IllegalArgumentException("expecting a \"hand\" of cards");
+            }
+            if (this.hand.size() > MAX_HAND_SIZE) {
+                throw new IllegalArgumentException("hands are limited to " + MAX_HAND_SIZE + " cards");
+            }
+            this.numBooks = getCount("books");
+            this.numRuns = getCount("runs");
+            Object strategy = this.body.getOrDefault("strategy", "exact");
+            if (strategy.equals("exact")) {
+                this.strategy = Strategy.EXACT;
+            } else if (strategy.equals("greedy")) {
+                this.strategy = Strategy.GREEDY;
+            } else {
+                throw new IllegalArgumentException("strategy must be \"greedy\" or \"exact\"");
+            }
+        }
+
+        private int getCount(String field) {
+            Object value = this.body.getOrDefault(field, 0L);
+            if (!(value instanceof Long) || (Long) value < 0 || (Long) value > MAX_HAND_SIZE) {
+                throw new IllegalArgumentException("\"" + field + "\" must be an integer from 0 to "
+                        + MAX_HAND_SIZE);
+            }
+            return (int) (long) (Long) value;
+        }
+    }
+}
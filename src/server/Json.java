@@ -0,0 +1,268 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal JSON reader and writer, enough for the requests and responses of the advisory
+ * server without depending on a library.
+ *
+ * Objects are read as a Map from String to value (in document order), arrays as a List,
+ * strings as a String, numbers as a Long if they are integers and a Double otherwise,
+ * and true, false and null as Boolean.TRUE, Boolean.FALSE and null. Values nested more than
+ * MAX_DEPTH deep are rejected.
+ */
+public class Json {
+    public final static int MAX_DEPTH = 64;
+
+    private final String text;
+    private int pos;
+    private int depth;
+
+    private Json(String text) {
+        this.text = text;
+        this.pos = 0;
+    }
+
+    /**
+     * Reads the JSON value making up the given text.
+     *
+     * @param text the text
+     * @return the value
+     * @throws IllegalArgumentException if the text is not a single valid JSON value
+     */
+    public static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.readValue();
+        json.skipWhitespace();
+        if (json.pos != text.length()) {
+            throw json.error("unexpected trailing characters");
+        }
+        return value;
+    }
+
+    /**
+     * Appends the given string to the builder as a quoted JSON string.
+     *
+     * @param builder the builder to append to
+     * @param string the string
+     * @return the builder
+     */
+    public static StringBuilder quote(StringBuilder builder, String string) {
+        builder.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.append('"');
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        if (this.pos == this.text.length()) {
+            throw error("unexpected end of input");
+        }
+        char c = this.text.charAt(this.pos);
+        switch (c) {
+            case '{':
+            case '[':
+                if (++this.depth > MAX_DEPTH) {
+                    throw error("nested too deeply");
+                }
+                Object value = c == '{' ? readObject() : readArray();
+                this.depth--;
+                return value;
+            case '"':
+                return readString();
+            case 't':
+                expectWord("true");
+                return Boolean.TRUE;
+            case 'f':
+                expectWord("false");
+                return Boolean.FALSE;
+            case 'n':
+                expectWord("null");
+                return null;
+            default:
+                if (c == '-' || c >= '0' && c <= '9') {
+                    return readNumber();
+                }
+                throw error("unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        this.pos++;
+        skipWhitespace();
+        if (peek() == '}') {
+            this.pos++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("expecting a string key");
+            }
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            object.put(key, readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                this.pos++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        this.pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            this.pos++;
+            return array;
+        }
+        while (true) {
+            array.add(readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                this.pos++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String readString() {
+        StringBuilder builder = new StringBuilder();
+        this.pos++;
+        while (true) {
+            if (this.pos == this.text.length()) {
+                throw error("unterminated string");
+            }
+            char c = this.text.charAt(this.pos++);
+            if (c == '"') {
+                return builder.toString();
+            } else if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            if (this.pos == this.text.length()) {
+                throw error("unterminated string");
+            }
+            char escaped = this.text.charAt(this.pos++);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    builder.append(escaped);
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    if (this.pos + 4 > this.text.length()) {
+                        throw error("unterminated escape");
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(this.text.substring(this.pos, this.pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("invalid unicode escape");
+                    }
+                    this.pos += 4;
+                    break;
+                default:
+                    throw error("invalid escape '\\" + escaped + "'");
+            }
+        }
+    }
+
+    private Object readNumber() {
+        int start = this.pos;
+        boolean isInteger = true;
+        while (this.pos < this.text.length()) {
+            char c = this.text.charAt(this.pos);
+            if (c == '.' || c == 'e' || c == 'E' || c == '+') {
+                isInteger = false;
+            } else if (c != '-' && (c < '0' || c > '9')) {
+                break;
+            }
+            this.pos++;
+        }
+        String number = this.text.substring(start, this.pos);
+        try {
+            return isInteger ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("invalid number '" + number + "'");
+        }
+    }
+
+    private void expectWord(String word) {
+        if (!this.text.startsWith(word, this.pos)) {
+            throw error("unexpected character '" + this.text.charAt(this.pos) + "'");
+        }
+        this.pos += word.length();
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("expecting '" + c + "'");
+        }
+        this.pos++;
+    }
+
+    private char peek() {
+        return this.pos < this.text.length() ? this.text.charAt(this.pos) : '\0';
+    }
+
+    private void skipWhitespace() {
+        while (this.pos < this.text.length() && Character.isWhitespace(this.text.charAt(this.pos))) {
+            this.pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at offset " + this.pos + ": " + message);
+    }
+}
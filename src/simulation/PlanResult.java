@@ -0,0 +1,100 @@
+package simulation;
+
+import hand.Card;
+
+import java.util.Map;
+
+/**
+ * The result of a Planner search: the discards ranked by the number of cards expected to be
+ * missing after the turns searched, and the size and speed of the search.
+ */
+public class PlanResult {
+    private final Map<Card, Double> ranking;
+    private final int depth;
+    private final long numNodes;
+    private final long numMemoHits;
+    private final long elapsedNanos;
+
+    /**
+     * Instantiates a new result.
+     *
+     * @param ranking the expected number of cards missing after each discard, best first
+     * @param depth the number of turns searched after the discard
+     * @param numNodes the number of nodes searched
+     * @param numMemoHits the number of nodes whose value was found in the memo
+     * @param elapsedNanos the time taken, in nanoseconds
+     */
+    public PlanResult(Map<Card, Double> ranking, int depth, long numNodes, long numMemoHits, long elapsedNanos) {
+        this.ranking = ranking;
+        this.depth = depth;
+        this.numNodes = numNodes;
+        this.numMemoHits = numMemoHits;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the expected number of cards missing after each discard, from best to worst.
+     *
+     * @return a map between each discard and its expected number of cards missing
+     */
+    public Map<Card, Double> getRanking() {
+        return this.ranking;
+    }
+
+    /**
+     * Returns the best discard.
+     *
+     * @return the best discard, or null if the hand was empty
+     */
+    public Card getBestDiscard() {
+        for (Card card : this.ranking.keySet()) {
+            return card;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of turns searched after the discard.
+     *
+     * @return the depth of the search
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Returns the number of nodes searched, counting both draws and discards.
+     *
+     * @return the number of nodes
+     */
+    public long getNumNodes() {
+        return this.numNodes;
+    }
+
+    /**
+     * Returns the number of nodes whose value was found in the memo.
+     *
+     * @return the number of memo hits
+     */
+    public long getNumMemoHits() {
+        return this.numMemoHits;
+    }
+
+    /**
+     * Returns the time taken, in nanoseconds.
+     *
+     * @return the time taken
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the number of nodes searched per second.
+     *
+     * @return the throughput
+     */
+    public double getNodesPerSecond() {
+        return this.numNodes / (this.elapsedNanos / 1e9);
+    }
+}
@@ -0,0 +1,352 @@
+package simulation;
+
+import algorithms.HandEvaluator;
+import algorithms.Strategy;
+import hand.CanonicalHand;
+import hand.Card;
+import hand.PackedHand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An expectimax search over the next few turns, which ranks the discards of a hand holding a
+ * freshly drawn card by the number of cards expected to be missing after a given number of
+ * further turns.
+ *
+ * Each turn is a chance node over every card which may be drawn, weighted by how many copies
+ * of it are unseen, followed by a choice of the discard leaving the fewest cards expected.
+ * The weights are fixed for the whole search, so the few cards drawn along a line of play
+ * are not removed from the shoe. A line of play ends as soon as no cards are missing.
+ *
+ * The search is kept small in four ways. The value of a hand with a given number of turns left
+ * is memoized. Under the EXACT strategy, each hand about to draw is first replaced by its
+ * CanonicalHand, permuting only suits with the same draw weights, so hands which differ only
+ * by such a permutation share one search and memo entry. Only the beamWidth discards which
+ * leave the fewest cards missing right away are searched below the root. Under the EXACT
+ * strategy, each turn can reduce the cards missing by at most one, so a hand missing m cards
+ * with d turns left is worth at least m - d. Discards whose bound cannot beat the best discard
+ * found are skipped, and the draws below a discard are abandoned as soon as their bounds show
+ * it cannot beat the best. On the last turn, a draw which leaves the cards missing unchanged
+ * is worth exactly the cards missing now, as it can be discarded again, so it is not searched.
+ * The discards at the root are searched in parallel using fork/join, sharing the memo.
+ */
+public class Planner {
+    public final static int DEFAULT_BEAM_WIDTH = 4;
+    private final static int MAX_MEMO_SIZE = 1 << 20;
+
+    private final int numBooks;
+    private final int numRuns;
+    private final Strategy strategy;
+    private final int[] drawWeights;
+    private final long totalWeight;
+    private final int[] suitClasses;
+    private final int beamWidth;
+    private final Map<Key, Double> memo = new ConcurrentHashMap<>();
+    private final LongAdder numNodes = new LongAdder();
+    private final LongAdder numMemoHits = new LongAdder();
+
+    /**
+     * Instantiates a new planner.
+     *
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @param drawWeights the relative chance of drawing each card, indexed by ordinal
+     *                    (usually the number of unseen copies)
+     * @param beamWidth the number of discards searched below the root
+     */
+    public Planner(int numBooks, int numRuns, Strategy strategy, int[] drawWeights, int beamWidth) {
+        this.numBooks = numBooks;
+        this.numRuns = numRuns;
+        this.strategy = strategy;
+        this.drawWeights = Arrays.copyOf(drawWeights, Card.NUM_CARDS);
+        long totalWeight = 0;
+        for (int weight : this.drawWeights) {
+            totalWeight += weight;
+        }
+        this.totalWeight = totalWeight;
+        this.suitClasses = CanonicalHand.getSuitClasses(this.drawWeights);
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * Ranks every distinct card of the given hand as a discard, by the number of cards
+     * expected to be missing after discarding it and playing the given number of turns.
+     * Ties are broken by discarding the card with the higher score first.
+     *
+     * @param hand the packed hand of cards, holding the card just drawn
+     * @param depth the number of turns searched after the discard
+     * @return the ranking, with the size and speed of the search
+     */
+    public PlanResult plan(PackedHand hand, int depth) {
+        long startTime = System.nanoTime();
+        this.memo.clear();
+        this.numNodes.reset();
+        this.numMemoHits.reset();
+        List<Card> discards = new ArrayList<>();
+        List<DiscardTask> tasks = new ArrayList<>();
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            if (hand.count(ordinal) > 0) {
+                PackedHand remaining = new PackedHand(hand);
+                remaining.remove(ordinal);
+                discards.add(Card.fromOrdinal(ordinal));
+                tasks.add(new DiscardTask(remaining, depth));
+            }
+        }
+        ForkJoinPool.commonPool().invoke(new RootTask(tasks));
+        Map<Card, Double> values = new LinkedHashMap<>();
+        for (int i = 0; i < discards.size(); i++) {
+            values.put(discards.get(i), tasks.get(i).join());
+        }
+        // Stable, so ties remain in ordinal order
+        discards.sort((Card cardOne, Card cardTwo) -> {
+            int compare = Double.compare(values.get(cardOne), values.get(cardTwo));
+            return compare != 0 ? compare : -Integer.compare(cardOne.getCardScore(), cardTwo.getCardScore());
+        });
+        Map<Card, Double> ranking = new LinkedHashMap<>();
+        for (Card card : discards) {
+            ranking.put(card, values.get(card));
+        }
+        return new PlanResult(ranking, depth, this.numNodes.sum(), this.numMemoHits.sum(),
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Determines the number of cards expected to be missing from the given hand, about to
+     * draw, after the given number of turns.
+     *
+     * Once the value is known to be at least the given cutoff, the search stops and returns
+     * a lower bound of at least the cutoff instead of the value, which is not memoized.
+     *
+     * @param hand the packed hand of cards
+     * @param depth the number of turns left
+     * @param cutoff the value at or above which the exact value is not needed
+     * @return the expected number of cards missing, or a lower bound of at least cutoff
+     */
+    private double expectedMissing(PackedHand hand, int depth, double cutoff) {
+        this.numNodes.increment();
+        if (this.strategy == Strategy.EXACT) {
+            hand = CanonicalHand.of(hand, this.suitClasses).getHand();
+        }
+        HandEvaluator evaluator = new HandEvaluator(hand, this.numBooks, this.numRuns, this.strategy);
+        int numMissing = evaluator.numCardsMissing();
+        if (depth == 0 || numMissing == 0 || this.totalWeight == 0) {
+            return numMissing;
+        }
+        Key key = new Key(hand, depth);
+        Double cached = this.memo.get(key);
+        if (cached != null) {
+            this.numMemoHits.increment();
+            return cached;
+        }
+        // Every draw is worth at least the cards missing with it, less the turns after it
+        int[] missingWith = new int[Card.NUM_CARDS];
+        double bound = 0;
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            if (this.drawWeights[ordinal] > 0) {
+                missingWith[ordinal] = evaluator.numCardsMissingWith(Card.fromOrdinal(ordinal));
+                bound += this.drawWeights[ordinal] * lowerBound(missingWith[ordinal], depth - 1);
+            }
+        }
+        double cutoffWeight = cutoff * this.totalWeight;
+        if (bound >= cutoffWeight) {
+            return cutoff;
+        }
+        PackedHand next = new PackedHand(hand);
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            int weight = this.drawWeights[ordinal];
+            if (weight == 0 || missingWith[ordinal] == 0) {
+                // The bound of a draw which completes the hand is exact
+                continue;
+            }
+            double value;
+            if (depth == 1 && missingWith[ordinal] == numMissing && this.strategy == Strategy.EXACT) {
+                // Discarding the card drawn is as good as any discard
+                value = numMissing;
+            } else {
+                next.add(ordinal);
+                double drawCutoff = (cutoffWeight - bound) / weight + lowerBound(missingWith[ordinal], depth - 1);
+                value = bestDiscardMissing(next, depth - 1, drawCutoff);
+                next.remove(ordinal);
+                if (value >= drawCutoff) {
+                    // The remaining draws cannot bring the value below the cutoff
+                    return cutoff;
+                }
+            }
+            bound += weight * (value - lowerBound(missingWith[ordinal], depth - 1));
+        }
+        double expected = bound / this.totalWeight;
+        if (this.memo.size() < MAX_MEMO_SIZE) {
+            this.memo.putIfAbsent(key, expected);
+        }
+        return expected;
+    }
+
+    /**
+     * Determines the number of cards expected to be missing after the best discard from the
+     * given hand, holding the card just drawn, followed by the given number of turns.
+     *
+     * Once the value is known to be at least the given cutoff, the search stops and returns
+     * a lower bound of at least the cutoff instead.
+     *
+     * @param hand the packed hand of cards, which is restored before returning
+     * @param depth the number of turns left after the discard
+     * @param cutoff the value at or above which the exact value is not needed
+     * @return the expected number of cards missing, or a lower bound of at least cutoff
+     */
+    private double bestDiscardMissing(PackedHand hand, int depth, double cutoff) {
+        this.numNodes.increment();
+        HandEvaluator evaluator = new HandEvaluator(hand, this.numBooks, this.numRuns, this.strategy);
+        if (depth == 0) {
+            return fewestMissingWithout(hand, evaluator);
+        }
+        // Candidates ordered by the cards missing right after the discard, then by score
+        int numCandidates = 0;
+        int[] candidates = new int[Card.NUM_CARDS];
+        int[] candidateMissing = new int[Card.NUM_CARDS];
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            if (hand.count(ordinal) == 0) {
+                continue;
+            }
+            Card card = Card.fromOrdinal(ordinal);
+            int numMissing = evaluator.numCardsMissingWithout(card);
+            int i = numCandidates++;
+            while (i > 0 && (candidateMissing[i - 1] > numMissing || (candidateMissing[i - 1] == numMissing
+                    && Card.fromOrdinal(candidates[i - 1]).getCardScore() < card.getCardScore()))) {
+                candidates[i] = candidates[i - 1];
+                candidateMissing[i] = candidateMissing[i - 1];
+                i--;
+            }
+            candidates[i] = ordinal;
+            candidateMissing[i] = numMissing;
+        }
+        if (numCandidates == 0) {
+            return evaluator.numCardsMissing();
+        }
+        if (candidateMissing[0] == 0) {
+            // The cards missing right after the best discard are already known
+            return candidateMissing[0];
+        }
+        double best = cutoff;
+        for (int i = 0; i < Math.min(numCandidates, this.beamWidth); i++) {
+            if (lowerBound(candidateMissing[i], depth) >= best) {
+                // Neither this nor any later candidate can do better
+                break;
+            }
+            hand.remove(candidates[i]);
+            best = Math.min(best, expectedMissing(hand, depth, best));
+            hand.add(candidates[i]);
+        }
+        return best;
+    }
+
+    /**
+     * Determines the fewest cards missing after discarding any card from the given hand,
+     * stopping at the first card which can be discarded without missing more cards (under
+     * the GREEDY strategy, discarding a card may leave fewer cards missing).
+     *
+     * @param hand the packed hand of cards
+     * @param evaluator the analysis of the hand
+     * @return the fewest cards missing after a discard
+     */
+    private int fewestMissingWithout(PackedHand hand, HandEvaluator evaluator) {
+        int numMissing = this.strategy == Strategy.EXACT ? evaluator.numCardsMissing() : 0;
+        int fewest = Integer.MAX_VALUE;
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS && fewest > numMissing; ordinal++) {
+            if (hand.count(ordinal) > 0) {
+                fewest = Math.min(fewest, evaluator.numCardsMissingWithout(Card.fromOrdinal(ordinal)));
+            }
+        }
+        return fewest == Integer.MAX_VALUE ? numMissing : fewest;
+    }
+
+    /**
+     * Returns the fewest cards which may be missing after the given number of turns, from a
+     * hand with the given number of cards missing. Under the EXACT strategy, each turn
+     * reduces the cards missing by at most one. Under the GREEDY strategy, only the trivial
+     * bound of zero holds.
+     *
+     * @param numMissing the number of cards missing now
+     * @param depth the number of turns
+     * @return the lower bound
+     */
+    private int lowerBound(int numMissing, int depth) {
+        return this.strategy == Strategy.EXACT ? Math.max(0, numMissing - depth) : 0;
+    }
+
+    /**
+     * A task which searches the turns after one of the discards at the root.
+     */
+    private class DiscardTask extends RecursiveTask<Double> {
+        private final PackedHand hand;
+        private final int depth;
+
+        private DiscardTask(PackedHand hand, int depth) {
+            this.hand = hand;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Double compute() {
+            return expectedMissing(this.hand, this.depth, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    /**
+     * A task which runs the tasks of every discard at the root in parallel.
+     */
+    private static class RootTask extends RecursiveTask<Void> {
+        private final List<DiscardTask> tasks;
+
+        private RootTask(List<DiscardTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected Void compute() {
+            invokeAll(this.tasks);
+            return null;
+        }
+    }
+
+    /**
+     * The memo key of a hand with a number of turns left: its packed counters and the depth.
+     */
+    private static class Key {
+        private final long[] words = new long[PackedHand.NUM_SUITS + 1];
+        private final int depth;
+        private final int hash;
+
+        private Key(PackedHand hand, int depth) {
+            int hash = 0;
+            for (int i = 0; i < this.words.length; i++) {
+                this.words[i] = hand.getWord(i);
+                hash = 31 * hash + Long.hashCode(this.words[i]);
+            }
+            this.depth = depth;
+            this.hash = 31 * hash + depth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof Key) {
+                Key other = (Key) o;
+                return this.hash == other.hash && this.depth == other.depth && Arrays.equals(this.words, other.words);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package simulation;
+
+/**
+ * The results of a set of playouts, recorded as a histogram of how many turns each
+ * playout took to complete its hand.
+ */
+public class SimulationResult {
+    private final long[] histogram;
+    private final int trials;
+    private final long elapsedNanos;
+
+    /**
+     * Instantiates a new set of results.
+     *
+     * @param histogram the number of playouts completed after each number of turns, where the
+     *                  last entry counts playouts which were not completed
+     * @param trials the number of playouts
+     * @param elapsedNanos the time taken to run the playouts, in nanoseconds
+     */
+    public SimulationResult(long[] histogram, int trials, long elapsedNanos) {
+        this.histogram = histogram.clone();
+        this.trials = trials;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of turns after which a playout was abandoned.
+     *
+     * @return the maximum number of turns
+     */
+    public int getMaxTurns() {
+        return this.histogram.length - 2;
+    }
+
+    /**
+     * Returns the number of playouts.
+     *
+     * @return the number of playouts
+     */
+    public int getTrials() {
+        return this.trials;
+    }
+
+    /**
+     * Returns the mean number of turns taken by the playouts which completed their hand,
+     * or NaN if none did.
+     *
+     * @return the mean number of turns
+     */
+    public double getMeanTurns() {
+        long numCompleted = 0;
+        long totalTurns = 0;
+        for (int turns = 0; turns <= getMaxTurns(); turns++) {
+            numCompleted += this.histogram[turns];
+            totalTurns += turns * this.histogram[turns];
+        }
+        return (double) totalTurns / numCompleted;
+    }
+
+    /**
+     * Returns the least number of turns within which at least the given fraction of
+     * playouts completed their hand, or getMaxTurns() + 1 if that number is greater
+     * than the maximum number of turns.
+     *
+     * @param fraction the fraction of playouts (between 0 and 1)
+     * @return the number of turns
+     */
+    public int getPercentile(double fraction) {
+        long numCompleted = 0;
+        for (int turns = 0; turns <= getMaxTurns(); turns++) {
+            numCompleted += this.histogram[turns];
+            if (numCompleted >= fraction * this.trials) {
+                return turns;
+            }
+        }
+        return getMaxTurns() + 1;
+    }
+
+    /**
+     * Returns the fraction of playouts which completed their hand within the given
+     * number of turns.
+     *
+     * @param turns the number of turns
+     * @return the probability of completing the hand within the given turns
+     */
+    public double getProbWithin(int turns) {
+        long numCompleted = 0;
+        for (int i = 0; i <= Math.min(turns, getMaxTurns()); i++) {
+            numCompleted += this.histogram[i];
+        }
+        return (double) numCompleted / this.trials;
+    }
+
+    /**
+     * Returns the number of playouts run per second.
+     *
+     * @return the throughput in playouts per second
+     */
+    public double getPlayoutsPerSecond() {
+        return this.trials * 1e9 / this.elapsedNanos;
+    }
+}
@@ -0,0 +1,132 @@
+package simulation;
+
+import algorithms.DiscardAlgorithm;
+import algorithms.HandEvaluator;
+import algorithms.Strategy;
+import hand.CanonicalHand;
+import hand.Card;
+import hand.PackedHand;
+import hand.Shoe;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A Monte Carlo simulator which estimates how many turns a hand needs to complete its
+ * required books and runs.
+ *
+ * Each playout draws cards at random from the cards left in the shoe (every card of
+ * numDecks decks, minus those in the hand). After each draw, the playout stops if no cards
+ * are missing, and otherwise discards the best card as chosen by DiscardAlgorithm.
+ * Playouts are split between cores using fork/join, and each task is given its own Shoe,
+ * split from the last with its own SplittableRandom stream, so results are reproducible for
+ * a given seed. Under the EXACT strategy, the CanonicalHand is played out instead of the hand
+ * (the shoe is made from every suit alike), so hands which differ only in which suit is which
+ * give the same results for a given seed.
+ */
+public class Simulator {
+    private final static int TRIALS_PER_TASK = 256;
+
+    private final PackedHand hand;
+    private final int numBooks;
+    private final int numRuns;
+    private final Strategy strategy;
+    private final int numDecks;
+    private final int maxTurns;
+
+    /**
+     * Instantiates a new simulator for the given hand.
+     *
+     * @param hand the packed hand of cards
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param numDecks the number of decks in the shoe
+     * @param strategy the strategy used to determine the bases
+     * @param maxTurns the number of turns after which a playout is abandoned
+     */
+    public Simulator(PackedHand hand, int numBooks, int numRuns, int numDecks, Strategy strategy, int maxTurns) {
+        this.hand = strategy == Strategy.EXACT ? new PackedHand(CanonicalHand.of(hand).getHand())
+                : new PackedHand(hand);
+        this.numBooks = numBooks;
+        this.numRuns = numRuns;
+        this.strategy = strategy;
+        this.numDecks = numDecks;
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Runs the given number of playouts using the common fork/join pool.
+     *
+     * @param trials the number of playouts
+     * @param seed the seed from which every random stream is split
+     * @return the results of the playouts
+     */
+    public SimulationResult run(int trials, long seed) {
+        long startTime = System.nanoTime();
+        long[] histogram = ForkJoinPool.commonPool().invoke(
+                new PlayoutTask(0, trials, new Shoe(this.numDecks, this.hand, new SplittableRandom(seed))));
+        return new SimulationResult(histogram, trials, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Plays out the hand until no cards are missing, the shoe runs out, or maxTurns
+     * turns have passed.
+     *
+     * @param shoe the shoe of cards not in the hand, which is reset first
+     * @return the number of turns taken, or maxTurns + 1 if the hand was not completed
+     */
+    private int playout(Shoe shoe) {
+        HandEvaluator evaluator = new HandEvaluator(this.hand, this.numBooks, this.numRuns, this.strategy);
+        if (evaluator.numCardsMissing() == 0) {
+            return 0;
+        }
+        shoe.reset();
+        int turns = Math.min(this.maxTurns, shoe.size());
+        for (int turn = 0; turn < turns; turn++) {
+            Card card = Card.fromOrdinal(shoe.draw());
+            if (evaluator.numCardsMissingWith(card) == 0) {
+                return turn + 1;
+            }
+            evaluator.add(card);
+            evaluator.remove(DiscardAlgorithm.getBestDiscard(evaluator));
+        }
+        return this.maxTurns + 1;
+    }
+
+    /**
+     * A task which runs a range of playouts, splitting it in half until small enough.
+     */
+    private class PlayoutTask extends RecursiveTask<long[]> {
+        private final int from;
+        private final int to;
+        private final Shoe shoe;
+
+        private PlayoutTask(int from, int to, Shoe shoe) {
+            this.from = from;
+            this.to = to;
+            this.shoe = shoe;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (this.to - this.from <= TRIALS_PER_TASK) {
+                long[] histogram = new long[maxTurns + 2];
+                for (int i = this.from; i < this.to; i++) {
+                    histogram[playout(this.shoe)]++;
+                }
+                return histogram;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            PlayoutTask left = new PlayoutTask(this.from, mid, this.shoe.split());
+            PlayoutTask right = new PlayoutTask(mid, this.to, this.shoe);
+            left.fork();
+            long[] histogram = right.compute();
+            long[] leftHistogram = left.join();
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += leftHistogram[i];
+            }
+            return histogram;
+        }
+    }
+}
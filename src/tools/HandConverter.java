@@ -0,0 +1,140 @@
+package tools;
+
+import hand.Card;
+import hand.CardParser;
+import hand.HandArchive;
+import hand.PackedHand;
+import ui.Command;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts hands between the text format read by batch mode (one hand per line, in the format
+ * read by CardParser) and a binary HandArchive.
+ *
+ * Every hand in an archive shares the same decks and contract, so when converting to binary
+ * they are taken from the first hand, and every other hand must match them.
+ *
+ * Usage: HandConverter toBinary|toText input output
+ */
+public class HandConverter {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || !args[0].equals("toBinary") && !args[0].equals("toText")) {
+            System.out.println("Usage: HandConverter toBinary|toText input output");
+            return;
+        }
+        Path input = Paths.get(args[1]);
+        Path output = Paths.get(args[2]);
+        long startTime = System.nanoTime();
+        long numHands = args[0].equals("toBinary") ? toBinary(input, output) : toText(input, output);
+        if (numHands >= 0) {
+            System.out.printf("Converted %d hands in %.1f s\n", numHands, (System.nanoTime() - startTime) / 1e9);
+        }
+    }
+
+    /**
+     * Converts a text file of hands to an archive.
+     *
+     * @param input the path of the text file
+     * @param output the path of the archive
+     * @return the number of hands converted, or -1 if a line is not a valid hand
+     * @throws IOException if a file cannot be read or written
+     */
+    private static long toBinary(Path input, Path output) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            HandArchive.Writer writer = null;
+            CardParser parser = new CardParser();
+            PackedHand hand = new PackedHand();
+            int[] fields = new int[3];
+            int[] archiveFields = null;
+            String line;
+            long lineNum = 0;
+            try {
+                while ((line = reader.readLine()) != null) {
+                    lineNum++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    String error = parseLine(parser, line, hand, fields);
+                    if (error == null && archiveFields == null) {
+                        archiveFields = fields.clone();
+                        writer = HandArchive.create(output, fields[2], fields[0], fields[1]);
+                    } else if (error == null && (fields[0] != archiveFields[0] || fields[1] != archiveFields[1]
+                            || fields[2] != archiveFields[2])) {
+                        error = "the decks or contract differ from the first hand";
+                    }
+                    if (error != null) {
+                        System.out.printf("Error on line %d: %s\n", lineNum, error);
+                        return -1;
+                    }
+                    writer.write(hand);
+                }
+                if (writer == null) {
+                    writer = HandArchive.create(output, Command.DEFAULT_NUM_DECKS, 0, 0);
+                }
+                return writer.getNumHands();
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts an archive to a text file of hands.
+     *
+     * @param input the path of the archive
+     * @param output the path of the text file
+     * @return the number of hands converted
+     * @throws IOException if a file cannot be read or written
+     */
+    private static long toText(Path input, Path output) throws IOException {
+        HandArchive archive = HandArchive.open(input);
+        String fields = "books=" + archive.getNumBooks() + " runs=" + archive.getNumRuns()
+                + " decks=" + archive.getNumDecks();
+        PackedHand hand = new PackedHand();
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            for (long index = 0; index < archive.getNumHands(); index++) {
+                archive.read(index, hand);
+                for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+                    String name = Card.fromOrdinal(ordinal).encode();
+                    for (int i = hand.count(ordinal); i > 0; i--) {
+                        writer.write(name);
+                        writer.write(' ');
+                    }
+                }
+                writer.write(fields);
+                writer.newLine();
+            }
+        }
+        return archive.getNumHands();
+    }
+
+    /**
+     * Parses a line of the text format.
+     *
+     * @param parser the parser
+     * @param line the line
+     * @param hand the hand to replace with the cards on the line
+     * @param fields the array to fill with the books, runs and decks fields
+     * @return null if the line is valid. Otherwise, the reason it is not.
+     */
+    private static String parseLine(CardParser parser, String line, PackedHand hand, int[] fields) {
+        int result = parser.parseLine(line, hand);
+        if (result < 0) {
+            return "'" + line.substring(parser.getErrorStart(), parser.getErrorEnd()) + "': "
+                    + CardParser.describe(result);
+        }
+        fields[0] = Math.max(parser.getNumBooks(), 0);
+        fields[1] = Math.max(parser.getNumRuns(), 0);
+        fields[2] = parser.getNumDecks() == CardParser.NOT_SET ? Command.DEFAULT_NUM_DECKS : parser.getNumDecks();
+        return null;
+    }
+}
@@ -0,0 +1,173 @@
+package tools;
+
+import game.Contract;
+import hand.Card;
+import server.Json;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Sends requests to a running AdvisoryServer from a number of connections in a closed loop,
+ * each sending its next request as soon as the last is answered, and reports the throughput
+ * and latency percentiles.
+ *
+ * Requests are built from NUM_HANDS random hands of 11 cards from 2 decks, cycling through
+ * the contracts, with a fixed seed. Requests made during the first WARMUP_SECONDS are not
+ * measured.
+ *
+ * Usage: LoadGenerator [endpoint] [connections] [seconds] [url]
+ * (build, 16 connections and 10 seconds against http://127.0.0.1:8080 by default)
+ */
+public class LoadGenerator {
+    public final static int NUM_HANDS = 1024;
+    public final static int WARMUP_SECONDS = 2;
+    private final static long SEED = 20240601L;
+
+    public static void main(String[] args) throws InterruptedException {
+        String endpoint = args.length > 0 ? args[0] : "build";
+        int numConnections = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String url = args.length > 3 ? args[3] : "http://127.0.0.1:8080";
+        URI uri = URI.create(url + "/" + endpoint);
+        String[] bodies = makeBodies(endpoint);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        long startTime = System.nanoTime();
+        long measureFrom = startTime + WARMUP_SECONDS * 1_000_000_000L;
+        long measureTo = measureFrom + seconds * 1_000_000_000L;
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < numConnections; i++) {
+            Worker worker = new Worker(client, uri, bodies, i, measureFrom, measureTo);
+            workers.add(worker);
+            worker.start();
+        }
+        long[] latencies = new long[0];
+        int numErrors = 0;
+        for (Worker worker : workers) {
+            worker.join();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.numLatencies);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.numLatencies);
+            numErrors += worker.numErrors;
+            if (worker.failure != null) {
+                System.out.println("Error: connection stopped: " + worker.failure);
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("Endpoint:\t%s (%d connections, %d s)\n", uri, numConnections, seconds);
+        System.out.printf("Requests:\t%d (%d errors)\n", latencies.length, numErrors);
+        System.out.printf("Throughput:\t%.0f requests/s\n", latencies.length / (double) seconds);
+        if (latencies.length > 0) {
+            System.out.printf("Latency p50:\t%.3f ms\n", percentile(latencies, 0.5) / 1e6);
+            System.out.printf("Latency p99:\t%.3f ms\n", percentile(latencies, 0.99) / 1e6);
+            System.out.printf("Latency max:\t%.3f ms\n", latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Builds the request bodies for the given endpoint.
+     *
+     * @param endpoint the endpoint
+     * @return the request bodies
+     */
+    private static String[] makeBodies(String endpoint) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Contract[] contracts = Contract.values();
+        String[] bodies = new String[NUM_HANDS];
+        int[] shoe = new int[Card.NUM_CARDS * 2];
+        for (int i = 0; i < shoe.length; i++) {
+            shoe[i] = i % Card.NUM_CARDS;
+        }
+        for (int i = 0; i < NUM_HANDS; i++) {
+            StringBuilder body = new StringBuilder("{\"hand\":[");
+            // Partial Fisher-Yates shuffle of the shoe
+            for (int j = 0; j < 11; j++) {
+                int swap = j + random.nextInt(shoe.length - j);
+                int ordinal = shoe[swap];
+                shoe[swap] = shoe[j];
+                shoe[j] = ordinal;
+                Json.quote(body.append(j == 0 ? "" : ","), Card.fromOrdinal(ordinal).encode());
+            }
+            Contract contract = contracts[i % contracts.length];
+            body.append("],\"books\":").append(contract.getNumBooks())
+                    .append(",\"runs\":").append(contract.getNumRuns());
+            if (endpoint.equals("buy")) {
+                Json.quote(body.append(",\"card\":"), Card.fromOrdinal(shoe[11]).encode());
+            }
+            bodies[i] = body.append('}').toString();
+        }
+        return bodies;
+    }
+
+    /**
+     * Returns the given percentile of the sorted latencies.
+     *
+     * @param latencies the sorted latencies
+     * @param fraction the fraction of latencies at or below the percentile
+     * @return the percentile
+     */
+    private static long percentile(long[] latencies, double fraction) {
+        return latencies[Math.min(latencies.length - 1, (int) Math.ceil(fraction * latencies.length) - 1)];
+    }
+
+    /**
+     * A connection sending requests one after another.
+     */
+    private static class Worker extends Thread {
+        private final HttpClient client;
+        private final URI uri;
+        private final String[] bodies;
+        private final long measureFrom;
+        private final long measureTo;
+        private long[] latencies = new long[1024];
+        private int numLatencies;
+        private int numErrors;
+        private int next;
+        private Exception failure;
+
+        private Worker(HttpClient client, URI uri, String[] bodies, int id, long measureFrom, long measureTo) {
+            this.client = client;
+            this.uri = uri;
+            this.bodies = bodies;
+            this.next = id * 7919;
+            this.measureFrom = measureFrom;
+            this.measureTo = measureTo;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            while (now < this.measureTo) {
+                HttpRequest request = HttpRequest.newBuilder(this.uri)
+                        .POST(HttpRequest.BodyPublishers.ofString(this.bodies[this.next++ % this.bodies.length]))
+                        .build();
+                boolean ok;
+                try {
+                    ok = this.client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200;
+                } catch (IOException | InterruptedException e) {
+                    this.failure = e;
+                    return;
+                }
+                long end = System.nanoTime();
+                if (now >= this.measureFrom && end <= this.measureTo) {
+                    if (!ok) {
+                        this.numErrors++;
+                    }
+                    if (this.numLatencies == this.latencies.length) {
+                        this.latencies = Arrays.copyOf(this.latencies, 2 * this.numLatencies);
+                    }
+                    this.latencies[this.numLatencies++] = end - now;
+                }
+                now = end;
+            }
+        }
+    }
+}
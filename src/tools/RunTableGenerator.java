@@ -0,0 +1,32 @@
+package tools;
+
+import algorithms.RunTable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Generates the run table for a number of decks.
+ *
+ * Usage: RunTableGenerator numDecks [path]
+ * The table is written to RunTable.tablePath(numDecks) unless a path is given.
+ */
+public class RunTableGenerator {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: RunTableGenerator numDecks [path]");
+            return;
+        }
+        int numDecks = Integer.parseInt(args[0]);
+        Path path = args.length > 1 ? Paths.get(args[1]) : RunTable.tablePath(numDecks);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        long startTime = System.nanoTime();
+        RunTable.generate(numDecks, path);
+        System.out.printf("Wrote %d entries to %s in %.1f s\n", RunTable.numStates(numDecks), path,
+                (System.nanoTime() - startTime) / 1e9);
+    }
+}
@@ -0,0 +1,97 @@
+package tools;
+
+import algorithms.Algorithm;
+import algorithms.RunAlgorithm;
+import algorithms.RunTable;
+import hand.Card;
+import hand.CardType;
+import hand.PackedHand;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Cross-checks a run table against the live algorithm.
+ *
+ * Every entry of the table is compared with RunAlgorithm.suitEntry. Then RunAlgorithm.getRunBases,
+ * which uses the table, is compared on random hands with the original map-based search
+ * (adjCardsSearch over each suit). The table is read from RunTable.tablePath(numDecks).
+ *
+ * Usage: RunTableVerifier numDecks [numHands]
+ */
+public class RunTableVerifier {
+    private final static int MIN_RUN_CARDS = 4;
+    private final static int MAX_RUNS = 4;
+    private final static int DEFAULT_NUM_HANDS = 100000;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: RunTableVerifier numDecks [numHands]");
+            return;
+        }
+        int numDecks = Integer.parseInt(args[0]);
+        int numHands = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUM_HANDS;
+        RunTable table = RunTable.load(RunTable.tablePath(numDecks));
+
+        int[] cardCounts = new int[PackedHand.NUM_RANKS + 1];
+        int numStates = RunTable.numStates(numDecks);
+        int numBadEntries = 0;
+        for (int index = 0; index < numStates; index++) {
+            if (table.get(cardCounts) != RunAlgorithm.suitEntry(cardCounts)) {
+                numBadEntries++;
+            }
+            for (int cardNum = 1; cardNum <= PackedHand.NUM_RANKS && ++cardCounts[cardNum] > numDecks; cardNum++) {
+                cardCounts[cardNum] = 0;
+            }
+        }
+        System.out.printf("Entries:\t%d checked, %d wrong\n", numStates, numBadEntries);
+
+        SplittableRandom random = new SplittableRandom(numDecks);
+        int[] shoe = new int[Card.NUM_CARDS * numDecks];
+        for (int i = 0; i < shoe.length; i++) {
+            shoe[i] = i % Card.NUM_CARDS;
+        }
+        int numBadHands = 0;
+        for (int i = 0; i < numHands; i++) {
+            int handSize = 1 + random.nextInt(Math.min(shoe.length, 40));
+            List<Card> hand = new ArrayList<>(handSize);
+            for (int j = 0; j < handSize; j++) {
+                int swap = j + random.nextInt(shoe.length - j);
+                int ordinal = shoe[swap];
+                shoe[swap] = shoe[j];
+                shoe[j] = ordinal;
+                hand.add(Card.fromOrdinal(ordinal));
+            }
+            int numRuns = 1 + random.nextInt(MAX_RUNS);
+            if (!RunAlgorithm.getRunBases(hand, numRuns).equals(mapRunBases(hand, numRuns))) {
+                numBadHands++;
+            }
+        }
+        System.out.printf("Hands:\t\t%d checked, %d wrong\n", numHands, numBadHands);
+        if (numBadEntries > 0 || numBadHands > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Determines the run bases of the given cards with the original map-based search.
+     *
+     * @param cards the list of cards
+     * @param numRuns the number of required runs
+     * @return a list containing the run bases
+     */
+    private static List<List<Card>> mapRunBases(List<Card> cards, int numRuns) {
+        List<List<Card>> stacks = new ArrayList<>();
+        for (CardType suit : Card.getSuits()) {
+            Map<Integer, List<Card>> cardMap = Algorithm.getCardFreqMap(cards, suit);
+            for (int numAdjCards = MIN_RUN_CARDS; numAdjCards > 0; numAdjCards--) {
+                stacks.addAll(RunAlgorithm.adjCardsSearch(cardMap, numAdjCards));
+            }
+        }
+        Algorithm.sortStacks(stacks);
+        return new ArrayList<>(stacks.subList(0, Math.min(stacks.size(), numRuns)));
+    }
+}
@@ -0,0 +1,121 @@
+package tools;
+
+import hand.Card;
+import ui.SessionRegistry;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures how the throughput of a SessionRegistry scales with the number of threads.
+ *
+ * The given number of sessions are opened, each with a new hand of 11 cards from 2 decks and
+ * a contract of 1 book and 1 run, printing to a stream discarding its output. Then, for 1, 2,
+ * 4 and so on up to the number of available processors threads, each thread repeatedly runs a
+ * random command in a random session for the given time, and the commands per second and the
+ * speedup over 1 thread are reported. Scaling is only linear while the threads rarely pick
+ * the same session, so the number of sessions should be much larger than the number of
+ * threads.
+ *
+ * The commands are 'new 11', 'add' and 'buy' with a random card, 'build' and 'discard
+ * score', in equal proportions. Changing the hand discards the session's analysis, so the
+ * next 'build' or 'discard' looks the new hand up in the EvaluationCache shared by every
+ * session, and usually evaluates and inserts it.
+ *
+ * Usage: SessionStress [sessions] [seconds]
+ * (10000 sessions and 5 seconds per thread count by default)
+ */
+public class SessionStress {
+    private final static long SEED = 20240601L;
+
+    public static void main(String[] args) throws InterruptedException {
+        int numSessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        PrintStream sink = new PrintStream(OutputStream.nullOutputStream());
+        SessionRegistry registry = new SessionRegistry();
+        String[] ids = new String[numSessions];
+        for (int i = 0; i < numSessions; i++) {
+            ids[i] = registry.open(sink);
+            registry.execute(ids[i], "decks 2");
+            registry.execute(ids[i], "new 11");
+            registry.execute(ids[i], "books 1");
+            registry.execute(ids[i], "runs 1");
+        }
+        List<String> mix = new ArrayList<>();
+        for (int i = 0; i < Card.NUM_CARDS; i++) {
+            String card = Card.fromOrdinal(i).encode();
+            mix.add("new 11");
+            mix.add("add " + card);
+            mix.add("buy " + card);
+            mix.add("build");
+            mix.add("discard score");
+        }
+        String[] commands = mix.toArray(new String[0]);
+
+        // Warm up before measuring
+        measure(registry, ids, commands, 1, 1);
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        double baseline = 0;
+        System.out.printf("Sessions:\t%d (%d processors)\n", numSessions, maxThreads);
+        System.out.println("Threads\tCommands/s\tSpeedup");
+        for (int numThreads = 1; ; numThreads = Math.min(2 * numThreads, maxThreads)) {
+            double throughput = measure(registry, ids, commands, numThreads, seconds);
+            if (numThreads == 1) {
+                baseline = throughput;
+            }
+            System.out.printf("%d\t%.0f\t\t%.2f\n", numThreads, throughput, throughput / baseline);
+            if (numThreads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Runs random commands in random sessions from the given number of threads.
+     *
+     * @param registry the registry
+     * @param ids the ids of the sessions
+     * @param commands the commands
+     * @param numThreads the number of threads
+     * @param seconds the time to run for
+     * @return the number of commands run per second
+     */
+    private static double measure(SessionRegistry registry, String[] ids, String[] commands,
+                                  int numThreads, int seconds) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        long[] counts = new long[numThreads];
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            int index = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(SEED + index);
+                long count = 0;
+                while (!stop.get()) {
+                    registry.execute(ids[random.nextInt(ids.length)], commands[random.nextInt(commands.length)]);
+                    count++;
+                }
+                counts[index] = count;
+            });
+            threads.add(thread);
+        }
+        long startTime = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        long total = 0;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - startTime) / 1e9;
+        for (long count : counts) {
+            total += count;
+        }
+        return total / elapsed;
+    }
+}
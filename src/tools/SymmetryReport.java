@@ -0,0 +1,74 @@
+package tools;
+
+import hand.CanonicalHand;
+import hand.CardParser;
+import hand.HandArchive;
+import hand.PackedHand;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Measures how much a corpus of hands shrinks when each hand is replaced by its
+ * CanonicalHand, which is how the EXACT strategy's evaluations are keyed.
+ *
+ * Reads hands from a text file in the batch mode format or from a HandArchive, and reports
+ * the number of hands, distinct hands and distinct canonical hands. Lines which cannot be
+ * parsed are skipped.
+ *
+ * Usage: SymmetryReport text|binary input
+ */
+public class SymmetryReport {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !args[0].equals("text") && !args[0].equals("binary")) {
+            System.out.println("Usage: SymmetryReport text|binary input");
+            return;
+        }
+        Set<PackedHand> hands = new HashSet<>();
+        Set<PackedHand> canonicalHands = new HashSet<>();
+        long numHands = 0;
+        long numMoved = 0;
+        PackedHand hand = new PackedHand();
+        if (args[0].equals("binary")) {
+            HandArchive archive = HandArchive.open(Paths.get(args[1]));
+            for (long index = 0; index < archive.getNumHands(); index++) {
+                archive.read(index, hand);
+                CanonicalHand canonical = CanonicalHand.of(hand);
+                numHands++;
+                numMoved += canonical.isIdentity() ? 0 : 1;
+                hands.add(new PackedHand(hand));
+                canonicalHands.add(canonical.getHand());
+            }
+        } else {
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                CardParser parser = new CardParser();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank() || parser.parseLine(line, hand) < 0) {
+                        continue;
+                    }
+                    CanonicalHand canonical = CanonicalHand.of(hand);
+                    numHands++;
+                    numMoved += canonical.isIdentity() ? 0 : 1;
+                    hands.add(new PackedHand(hand));
+                    canonicalHands.add(canonical.getHand());
+                }
+            }
+        }
+        if (numHands == 0) {
+            System.out.println("No hands read");
+            return;
+        }
+        System.out.printf("Hands:\t\t\t%d\n", numHands);
+        System.out.printf("Not already canonical:\t%d (%.1f%%)\n", numMoved, 100.0 * numMoved / numHands);
+        System.out.printf("Distinct hands:\t\t%d\n", hands.size());
+        System.out.printf("Distinct canonical:\t%d\n", canonicalHands.size());
+        System.out.printf("Shrink factor:\t\t%.2fx distinct hands, %.2fx hands\n",
+                hands.size() / (double) canonicalHands.size(), numHands / (double) canonicalHands.size());
+    }
+}
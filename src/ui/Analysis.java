@@ -0,0 +1,125 @@
+package ui;
+
+import algorithms.Algorithm;
+import algorithms.DiscardAlgorithm;
+import algorithms.EvaluationCache;
+import algorithms.HandEvaluator;
+import algorithms.Strategy;
+import hand.Card;
+import hand.PackedHand;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The analysis of one hand under one contract and strategy, shared by every command which
+ * only reads the hand.
+ *
+ * Each part of the analysis (the bases, the evaluator, the best discard and the rankings of
+ * draws and discards) is computed the first time it is asked for, and then kept. The hand is
+ * copied, so an analysis never changes; Command discards it whenever the hand, contract,
+ * number of decks or strategy changes. Maps returned must not be modified.
+ */
+public class Analysis {
+    private final PackedHand hand;
+    private final int numBooks;
+    private final int numRuns;
+    private final Strategy strategy;
+    private final EvaluationCache cache;
+    private Map<String, List<List<Card>>> bases;
+    private HandEvaluator evaluator;
+    private Card bestDiscard;
+    private boolean isBestDiscardKnown;
+    private Map<Card, Integer> drawRanking;
+    private Map<Card, Integer> discardRanking;
+
+    /**
+     * Instantiates the analysis of the given hand, without computing any of it yet.
+     *
+     * @param hand the packed hand of cards (which is copied)
+     * @param numBooks the number of required books
+     * @param numRuns the number of required runs
+     * @param strategy the strategy used to determine the bases
+     * @param cache the cache the bases are looked up in
+     */
+    public Analysis(PackedHand hand, int numBooks, int numRuns, Strategy strategy, EvaluationCache cache) {
+        this.hand = new PackedHand(hand);
+        this.numBooks = numBooks;
+        this.numRuns = numRuns;
+        this.strategy = strategy;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the optimal bases of the hand.
+     *
+     * @return a map between the Books / Runs and their optimal bases
+     */
+    public Map<String, List<List<Card>>> getBases() {
+        if (this.bases == null) {
+            this.bases = this.cache.getOptimalBases(this.hand, this.numBooks, this.numRuns, this.strategy);
+        }
+        return this.bases;
+    }
+
+    /**
+     * Returns the number of cards missing from the optimal bases of the hand.
+     *
+     * @return the number of cards missing
+     */
+    public int numCardsMissing() {
+        return Algorithm.numCardsMissing(getBases(), this.numBooks, this.numRuns);
+    }
+
+    /**
+     * Returns the evaluator of the hand, which answers how many cards would be missing if a
+     * single card were added or removed.
+     *
+     * @return the evaluator
+     */
+    public HandEvaluator getEvaluator() {
+        if (this.evaluator == null) {
+            this.evaluator = new HandEvaluator(this.hand, this.numBooks, this.numRuns, this.strategy);
+        }
+        return this.evaluator;
+    }
+
+    /**
+     * Returns the best card to discard from the hand.
+     *
+     * @return the best discard, or null if the hand is empty
+     */
+    public Card getBestDiscard() {
+        if (!this.isBestDiscardKnown) {
+            this.bestDiscard = DiscardAlgorithm.getBestDiscard(getEvaluator());
+            this.isBestDiscardKnown = true;
+        }
+        return this.bestDiscard;
+    }
+
+    /**
+     * Returns every distinct card ranked by how many fewer cards would be missing if it were
+     * drawn, as given by Algorithm.rankDraws.
+     *
+     * @return a map between each card and its improvement, from most to least improving
+     */
+    public Map<Card, Integer> getDrawRanking() {
+        if (this.drawRanking == null) {
+            this.drawRanking = Algorithm.rankDraws(this.hand, this.numBooks, this.numRuns, this.strategy);
+        }
+        return this.drawRanking;
+    }
+
+    /**
+     * Returns every distinct card in the hand ranked as a discard, as given by
+     * DiscardAlgorithm.rankDiscards.
+     *
+     * @return a map between each discard and the number of cards missing after it, from best to worst
+     */
+    public Map<Card, Integer> getDiscardRanking() {
+        if (this.discardRanking == null) {
+            this.discardRanking = DiscardAlgorithm.rankDiscards(this.hand, this.numBooks, this.numRuns, this.strategy);
+        }
+        return this.discardRanking;
+    }
+}
@@ -0,0 +1,290 @@
+package ui;
+
+import algorithms.Algorithm;
+import algorithms.DiscardAlgorithm;
+import algorithms.HandEvaluator;
+import algorithms.Strategy;
+import hand.Card;
+import hand.CardParser;
+import hand.PackedHand;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates a stream of hands without the interactive prompt.
+ *
+ * Each line holds one hand in the format read by CardParser (e.g. Card:1:SPADE HEART - TWO), along
+ * with optional books=n, runs=n and decks=n fields (0, 0 and 2 by default). For each hand, the
+ * best bases, the number of cards missing and the best discard are written, as CSV or JSON
+ * lines, in the same order as the input. Blank lines are skipped.
+ *
+ * Hands are evaluated in parallel, but at most IN_FLIGHT_PER_THREAD hands per thread are read
+ * ahead of the output, so memory stays constant however large the input is. The number of
+ * records written per second is reported on standard error at the end.
+ *
+ * Usage: --batch [--format csv|jsonl] [--threads n] [--strategy greedy|exact] [file]
+ */
+public class BatchMode {
+    public final static int IN_FLIGHT_PER_THREAD = 64;
+    public final static String CSV_HEADER = "line,books,runs,missing,discard,book_bases,run_bases,error";
+
+    private final static ThreadLocal<CardParser> PARSERS = ThreadLocal.withInitial(CardParser::new);
+
+    private final boolean jsonLines;
+    private final Strategy strategy;
+    private final int numThreads;
+
+    /**
+     * Instantiates a new batch mode.
+     *
+     * @param jsonLines true to write JSON lines. False to write CSV.
+     * @param strategy the strategy used to determine the bases
+     * @param numThreads the number of threads evaluating hands
+     */
+    public BatchMode(boolean jsonLines, Strategy strategy, int numThreads) {
+        this.jsonLines = jsonLines;
+        this.strategy = strategy;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Runs batch mode with the given command line arguments (after --batch).
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        boolean jsonLines = false;
+        Strategy strategy = Command.DEFAULT_STRATEGY;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        String fileName = null;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--format":
+                    if (!value.equals("csv") && !value.equals("jsonl")) {
+                        System.err.println("Error: format must be csv or jsonl");
+                        return;
+                    }
+                    jsonLines = value.equals("jsonl");
+                    i++;
+                    break;
+                case "--threads":
+                    numThreads = Command.parsePosInt(value);
+                    if (numThreads == Command.INVALID_INT) {
+                        return;
+                    }
+                    i++;
+                    break;
+                case "--strategy":
+                    if (!value.equals("greedy") && !value.equals("exact")) {
+                        System.err.println("Error: strategy must be greedy or exact");
+                        return;
+                    }
+                    strategy = value.equals("greedy") ? Strategy.GREEDY : Strategy.EXACT;
+                    i++;
+                    break;
+                default:
+                    fileName = args[i];
+            }
+        }
+        try (InputStream input = fileName == null ? System.in : new FileInputStream(fileName)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            long startTime = System.nanoTime();
+            long numRecords = new BatchMode(jsonLines, strategy, numThreads).run(reader, writer);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.err.printf("Processed %d records in %.2f s (%.0f records/s)\n",
+                    numRecords, seconds, numRecords / seconds);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evaluates every hand read from the given reader, and writes the results in input order.
+     *
+     * @param reader the reader of hands, one per line
+     * @param writer the writer of results, which is flushed at the end
+     * @return the number of records written
+     * @throws IOException if reading or writing fails
+     */
+    public long run(BufferedReader reader, Writer writer) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(this.numThreads);
+        Deque<Future<String>> inFlight = new ArrayDeque<>();
+        int maxInFlight = IN_FLIGHT_PER_THREAD * this.numThreads;
+        long numRecords = 0;
+        try {
+            if (!this.jsonLines) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            String line;
+            long lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (inFlight.size() == maxInFlight) {
+                    // Wait for the oldest hand before reading any further
+                    writeResult(inFlight.poll(), writer);
+                    numRecords++;
+                }
+                String handLine = line;
+                long handLineNum = lineNum;
+                inFlight.add(executor.submit(() -> evaluate(handLine, handLineNum)));
+            }
+            while (!inFlight.isEmpty()) {
+                writeResult(inFlight.poll(), writer);
+                numRecords++;
+            }
+            writer.flush();
+        } finally {
+            executor.shutdownNow();
+        }
+        return numRecords;
+    }
+
+    /**
+     * Writes the result of an evaluation once it is complete.
+     *
+     * @param result the pending result
+     * @param writer the writer of results
+     * @throws IOException if writing fails
+     */
+    private static void writeResult(Future<String> result, Writer writer) throws IOException {
+        try {
+            writer.write(result.get());
+            writer.write('\n');
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a result", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Evaluation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Parses and evaluates a single line, and formats its result.
+     *
+     * @param line the line holding the hand
+     * @param lineNum the line number, counting from 1
+     * @return the formatted result
+     */
+    String evaluate(String line, long lineNum) {
+        CardParser parser = PARSERS.get();
+        PackedHand hand = new PackedHand();
+        int numCards = parser.parseLine(line, hand);
+        if (numCards < 0) {
+            return formatError(lineNum, "'" + line.substring(parser.getErrorStart(), parser.getErrorEnd())
+                    + "': " + CardParser.describe(numCards));
+        }
+        int numBooks = Math.max(parser.getNumBooks(), 0);
+        int numRuns = Math.max(parser.getNumRuns(), 0);
+        int numDecks = parser.getNumDecks() == CardParser.NOT_SET ? Command.DEFAULT_NUM_DECKS : parser.getNumDecks();
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            if (hand.count(ordinal) > numDecks) {
+                return formatError(lineNum, "more copies of '" + Card.fromOrdinal(ordinal).encode()
+                        + "' than decks");
+            }
+        }
+        HandEvaluator evaluator = new HandEvaluator(hand, numBooks, numRuns, this.strategy);
+        Card discard = DiscardAlgorithm.getBestDiscard(evaluator);
+        Map<String, List<List<Card>>> bases = Algorithm.getOptimalBases(hand, numBooks, numRuns, this.strategy);
+        List<List<Card>> bookBases = bases.getOrDefault("Books", List.of());
+        List<List<Card>> runBases = bases.getOrDefault("Runs", List.of());
+        StringBuilder result = new StringBuilder();
+        String discardName = discard == null ? "" : discard.encode();
+        if (this.jsonLines) {
+            result.append("{\"line\":").append(lineNum)
+                    .append(",\"books\":").append(numBooks)
+                    .append(",\"runs\":").append(numRuns)
+                    .append(",\"missing\":").append(evaluator.numCardsMissing())
+                    .append(",\"discard\":").append(discard == null ? "null" : '"' + discardName + '"')
+                    .append(",\"book_bases\":");
+            appendJsonBases(result, bookBases);
+            result.append(",\"run_bases\":");
+            appendJsonBases(result, runBases);
+            result.append('}');
+        } else {
+            result.append(lineNum).append(',').append(numBooks).append(',').append(numRuns).append(',')
+                    .append(evaluator.numCardsMissing()).append(',').append(discardName).append(',');
+            appendCsvBases(result, bookBases);
+            result.append(',');
+            appendCsvBases(result, runBases);
+            result.append(',');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Formats a line which could not be evaluated.
+     *
+     * @param lineNum the line number
+     * @param message the reason the line could not be evaluated
+     * @return the formatted result
+     */
+    private String formatError(long lineNum, String message) {
+        if (this.jsonLines) {
+            return "{\"line\":" + lineNum + ",\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+        }
+        // Commas would split the CSV field, and quotes would need escaping
+        return lineNum + ",,,,,,," + message.replace(',', ';').replace('"', '\'');
+    }
+
+    /**
+     * Appends bases as a JSON array of arrays of card encodings.
+     *
+     * @param result the builder to append to
+     * @param bases the bases
+     */
+    private static void appendJsonBases(StringBuilder result, List<List<Card>> bases) {
+        result.append('[');
+        for (int i = 0; i < bases.size(); i++) {
+            result.append(i == 0 ? "[" : ",[");
+            List<Card> basis = bases.get(i);
+            for (int j = 0; j < basis.size(); j++) {
+                result.append(j == 0 ? "\"" : ",\"").append(basis.get(j).encode()).append('"');
+            }
+            result.append(']');
+        }
+        result.append(']');
+    }
+
+    /**
+     * Appends bases as a CSV field, with cards separated by spaces and bases by semicolons.
+     *
+     * @param result the builder to append to
+     * @param bases the bases
+     */
+    private static void appendCsvBases(StringBuilder result, List<List<Card>> bases) {
+        for (int i = 0; i < bases.size(); i++) {
+            if (i > 0) {
+                result.append(';');
+            }
+            List<Card> basis = bases.get(i);
+            for (int j = 0; j < basis.size(); j++) {
+                if (j > 0) {
+                    result.append(' ');
+                }
+                result.append(basis.get(j).encode());
+            }
+        }
+    }
+}
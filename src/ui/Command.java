@@ -1,14 +1,32 @@
 package ui;
 
 import algorithms.Algorithm;
+import algorithms.EvaluationCache;
+import algorithms.HandEvaluator;
+import algorithms.Strategy;
+import game.AlgorithmBot;
+import game.BotFactory;
+import game.SelfPlay;
+import game.SelfPlayResult;
 import hand.Card;
 import hand.Deck;
+import hand.PackedHand;
+import hand.ShoeTracker;
+import simulation.PlanResult;
+import simulation.Planner;
+import simulation.SimulationResult;
+import simulation.Simulator;
 import util.BadEncodingException;
+import util.Histogram;
+import util.Metrics;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Command {
     public final static String ANSI_RESET = "\u001B[0m";
@@ -17,52 +35,88 @@ public class Command {
     public final static int INVALID_INT = -1;
     public final static int DEFAULT_NUM_DECKS = 2;
     public final static int DEFAULT_HAND_SIZE = 11;
+    public final static Strategy DEFAULT_STRATEGY = Strategy.EXACT;
+    public final static int DEFAULT_TRIALS = 10000;
+    public final static int DEFAULT_TURNS = 10;
+    public final static int DEFAULT_GAMES = 100;
+    public final static int DEFAULT_PLAYERS = 4;
+    public final static int DEFAULT_PLAN_DEPTH = 2;
+    public final static int MAX_PLAN_DEPTH = 3;
+    private final static EvaluationCache CACHE = new EvaluationCache();
     public final static String INVALID_CARD_MSG = "Error: '%s' is not a valid card name\nAn example of a valid name is 'Card:1:SPADE'\n";
-    private List<Card> hand;
-    private int numDecks;
-    private int numBooks;
-    private int numRuns;
+    private final Session session;
+    private final PrintStream out;
+    private final Runnable onExit;
+    private Analysis analysis;
 
+    /**
+     * Instantiates a new interpreter for a single user, printing to System.out. The 'exit'
+     * command terminates the program.
+     */
     public Command() {
-        this.hand = new ArrayList<>();
-        this.numDecks = DEFAULT_NUM_DECKS;
-        this.numBooks = 0;
-        this.numRuns = 0;
+        this(new Session(System.out), () -> System.exit(0));
+    }
+
+    /**
+     * Instantiates a new interpreter for the given session, printing to the session's output.
+     *
+     * @param session the session whose state the commands read and change
+     * @param onExit the action run by the 'exit' command
+     */
+    public Command(Session session, Runnable onExit) {
+        this.session = session;
+        this.out = session.getOut();
+        this.onExit = onExit;
+    }
+
+    /**
+     * Returns the session whose state the commands read and change.
+     *
+     * @return the session
+     */
+    public Session getSession() {
+        return this.session;
     }
 
     public void readCommand(String line) {
         String[] splitArgs = line.split(" ", 2);
         String command = splitArgs[0];
+        long startTime = Metrics.ENABLED ? System.nanoTime() : 0;
         switch (command) {
             case "help":
-                help();
+                help(this.out);
                 break;
             case "view":
-                int numCards = this.hand.size();
+                int numCards = this.session.hand.size();
                 if (numCards == 0) {
-                    System.out.println("empty");
+                    this.out.println("empty");
                 } else {
-                    for (int i = 1; i <= this.hand.size(); i++) {
-                        System.out.printf("%d.\t%s\n", i, this.hand.get(i - 1));
+                    for (int i = 1; i <= this.session.hand.size(); i++) {
+                        this.out.printf("%d.\t%s\n", i, this.session.hand.get(i - 1));
                     }
                 }
-                System.out.printf("\nNum decks:\t%d\nNum books:\t%d\nNum runs:\t%d\n",
-                        this.numDecks, this.numBooks, this.numRuns);
+                this.out.printf("\nNum decks:\t%d\nNum books:\t%d\nNum runs:\t%d\nStrategy:\t%s\n",
+                        this.session.numDecks, this.session.numBooks, this.session.numRuns, this.session.strategy);
                 break;
             case "books":
                 setNumBooks(line);
+                invalidate();
                 break;
             case "runs":
                 setNumRuns(line);
+                invalidate();
                 break;
             case "decks":
                 setNumDecks(line);
+                invalidate();
                 break;
             case "add":
                 addCards(line);
+                invalidate();
                 break;
             case "new":
                 createNew(line);
+                invalidate();
                 break;
             case "buy":
                 buy(line);
@@ -71,29 +125,101 @@ public class Command {
                 buildBases();
                 break;
             case "score":
-                System.out.println(Algorithm.getScore(this.hand));
+                this.out.println(Algorithm.getScore(this.session.hand));
                 break;
             case "discard":
-                discard();
+                discard(line);
                 break;
             case "sort":
                 sortHand(line);
                 break;
+            case "strategy":
+                setStrategy(line);
+                invalidate();
+                break;
+            case "simulate":
+                simulate(line);
+                break;
+            case "selfplay":
+                selfPlay(line);
+                break;
+            case "seen":
+            case "discarded":
+            case "melded":
+                removeFromShoe(line);
+                break;
+            case "outs":
+                outs();
+                break;
+            case "plan":
+                plan(line);
+                break;
+            case "stats":
+                stats(line);
+                break;
             case "reset":
-                this.hand = new ArrayList<>();
-                this.numBooks = 0;
-                this.numRuns = 0;
-                this.numDecks = DEFAULT_NUM_DECKS;
+                this.session.reset();
+                invalidate();
                 break;
             case "exit":
-                System.exit(0);
+                this.onExit.run();
                 break;
             default:
-                System.out.println("Error: unknown command");
+                this.out.println("Error: unknown command");
+        }
+        if (Metrics.ENABLED) {
+            recordLatency(command, System.nanoTime() - startTime);
         }
     }
 
+    /**
+     * Records how long a command took in the histogram of its command, if it has one.
+     *
+     * @param command the name of the command
+     * @param nanos the time taken in nanoseconds
+     */
+    private static void recordLatency(String command, long nanos) {
+        switch (command) {
+            case "build":
+                Metrics.BUILD_NANOS.record(nanos);
+                break;
+            case "buy":
+                Metrics.BUY_NANOS.record(nanos);
+                break;
+            case "discard":
+                Metrics.DISCARD_NANOS.record(nanos);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Returns the analysis of the current hand, contract and strategy, creating it if the
+     * last one was invalidated.
+     *
+     * @return the analysis
+     */
+    public Analysis getAnalysis() {
+        if (this.analysis == null) {
+            this.analysis = new Analysis(PackedHand.fromList(this.session.hand),
+                    this.session.numBooks, this.session.numRuns, this.session.strategy, CACHE);
+        }
+        return this.analysis;
+    }
+
+    /**
+     * Discards the analysis of the hand, after the hand, contract, decks or strategy may
+     * have changed. Reordering the hand does not change its analysis.
+     */
+    public void invalidate() {
+        this.analysis = null;
+    }
+
     public static void help() {
+        help(System.out);
+    }
+
+    public static void help(PrintStream out) {
         Map<String, String> help = new LinkedHashMap<>();
         help.put("view", "look at current cards in hand");
         help.put("score", "determine your current score");
@@ -103,34 +229,52 @@ public class Command {
         help.put("add [card name] [num cards]", "add new card(s) of given name to hand\n\t\t(1 by default)");
         help.put("new [num cards]", "instantiates a new hand of randomly drawn cards\n\t\t(11 by default)");
         help.put("buy [card name]", "determine whether a given card should be bought");
+        help.put("buy all", "rank every card by how many fewer cards would be missing if bought");
         help.put("build", "determine the best bases for building books and/or runs,\n\t\tand how many more cards are needed.");
-        help.put("discard", "determine the best card to discard");
+        help.put("discard [option]", "determine the best card to discard:\n\t\t\tall - rank every card in the hand\n\t\t\tscore - highest scoring card outside the bases");
+        help.put("seen [card name] [num cards]", "record card(s) seen leaving the shoe, e.g. bought by\n\t\tanother player (1 by default)");
+        help.put("discarded [card name] [num cards]", "record card(s) discarded by another player\n\t\t(1 by default)");
+        help.put("melded [card name] [num cards]", "record card(s) melded by another player\n\t\t(1 by default)");
+        help.put("outs", "list every card which would reduce the cards missing, with its\n\t\tunseen copies and chance of being drawn next");
+        help.put("plan [turns]", "rank every card in the hand as a discard by how many cards are\n\t\texpected to be missing after searching the next turns' draws\n\t\tand discards, weighted by unseen cards (2 turns by default, up to 3)");
+        help.put("simulate [trials] [turns]", "estimate how many turns are needed to complete the books\n\t\tand/or runs, by playing out random draws\n\t\t(10000 trials of up to 10 turns by default)");
+        help.put("selfplay [games] [players]", "play full games between bots, alternating exact and greedy\n\t\tstrategies between seats (100 games of 4 players by default)");
         help.put("sort [option]", "sort the hand of cards by:\n\t\t\t0 - number\n\t\t\t1 - suit");
+        help.put("strategy [option]", "choose how bases are determined:\n\t\t\t0 - greedy\n\t\t\t1 - exact (default)");
+        help.put("stats [option]", "show the metrics recorded by this program:\n\t\t\tjson - as a single line of JSON\n\t\t\treset - reset every metric to zero");
         help.put("reset", "resets the player's hand");
         help.put("exit", "terminates the program");
-        System.out.println("List of valid commands:");
+        out.println("List of valid commands:");
         for (Map.Entry<String, String> entry : help.entrySet()) {
-            System.out.printf(ANSI_CYAN + "\t%s\n\t\t" + ANSI_RESET, entry.getKey());
-            System.out.println(entry.getValue());
+            out.printf(ANSI_CYAN + "\t%s\n\t\t" + ANSI_RESET, entry.getKey());
+            out.println(entry.getValue());
         }
     }
 
     public static int parseInt(String token) {
+        return parseInt(token, System.out);
+    }
+
+    public static int parseInt(String token, PrintStream out) {
         try {
             // Parse integer
             return Integer.parseInt(token);
         } catch (NumberFormatException e) {
-            System.out.println("Error: expecting an integer");
+            out.println("Error: expecting an integer");
         }
         return INVALID_INT;
     }
 
     public static int parsePosInt(String token) {
-        int num = parseInt(token);
+        return parsePosInt(token, System.out);
+    }
+
+    public static int parsePosInt(String token, PrintStream out) {
+        int num = parseInt(token, out);
         if (num > 0) {
             return num;
         } else {
-            System.out.println("Error: must be a positive integer");
+            out.println("Error: must be a positive integer");
         }
         return INVALID_INT;
     }
@@ -140,14 +284,14 @@ public class Command {
         if (tokens.length > 1) {
             // At least one argument
             // Parse number of books
-            int numBooks = parseInt(tokens[1]);
+            int numBooks = parseInt(tokens[1], this.out);
             if (numBooks >= 0) {
-                this.numBooks = numBooks;
+                this.session.numBooks = numBooks;
             } else {
-                System.out.println("Error: number must be non-negative");
+                this.out.println("Error: number must be non-negative");
             }
         } else {
-            System.out.println("Error: expecting at least one argument");
+            this.out.println("Error: expecting at least one argument");
         }
     }
 
@@ -156,35 +300,41 @@ public class Command {
         if (tokens.length > 1) {
             // At least one argument
             // Parse number of runs
-            int numRuns = parseInt(tokens[1]);
+            int numRuns = parseInt(tokens[1], this.out);
             if (numRuns >= 0) {
-                this.numRuns = numRuns;
+                this.session.numRuns = numRuns;
             } else {
-                System.out.println("Error: number must be non-negative");
+                this.out.println("Error: number must be non-negative");
             }
         } else {
-            System.out.println("Error: expecting at least one argument");
+            this.out.println("Error: expecting at least one argument");
         }
     }
 
     public void setNumDecks(String input) {
         String[] tokens = input.split(" ");
         if (tokens.length == 1) {
-            this.numDecks = DEFAULT_NUM_DECKS;
+            this.session.numDecks = DEFAULT_NUM_DECKS;
         } else {
             // At least one argument
             // Parse number of decks
-            int num = parsePosInt(tokens[1]);
-            if (num != INVALID_INT) {
-                this.numDecks = num;
+            int num = parsePosInt(tokens[1], this.out);
+            if (num > PackedHand.MAX_COPIES) {
+                this.out.printf("Error: at most %d decks are supported\n", PackedHand.MAX_COPIES);
+            } else if (num != INVALID_INT) {
+                this.session.numDecks = num;
             }
         }
+        if (this.session.shoe.getNumDecks() != this.session.numDecks) {
+            // Seen cards were counted against the old shoe
+            this.session.shoe = new ShoeTracker(this.session.numDecks);
+        }
     }
 
     public void addCards(String input) {
         String[] tokens = input.split(" ");
         if (tokens.length == 1) {
-            System.out.println("Error: expecting at least one argument");
+            this.out.println("Error: expecting at least one argument");
         } else {
             // At least one argument
             try {
@@ -194,68 +344,168 @@ public class Command {
                 if (tokens.length > 2) {
                     // At least two arguments
                     // Parse number of cards
-                    num = parsePosInt(tokens[2]);
+                    num = parsePosInt(tokens[2], this.out);
                 }
-                if (num != INVALID_INT) {
+                int numHeld = Collections.frequency(this.session.hand, card);
+                if (num != INVALID_INT && num > PackedHand.MAX_COPIES - numHeld) {
+                    this.out.printf("Error: a hand can hold at most %d copies of a card (%d held)\n",
+                            PackedHand.MAX_COPIES, numHeld);
+                } else if (num != INVALID_INT) {
                     for (int i = 0; i < num; i++) {
-                        hand.add(card);
+                        this.session.hand.add(card);
                     }
                 }
             } catch (BadEncodingException e) {
-                System.out.printf(INVALID_CARD_MSG, tokens[1]);
+                this.out.printf(INVALID_CARD_MSG, tokens[1]);
             }
         }
     }
 
+    public void removeFromShoe(String input) {
+        String[] tokens = input.split(" ");
+        if (tokens.length == 1) {
+            this.out.println("Error: expecting at least one argument");
+            return;
+        }
+        Card card;
+        try {
+            // Parse card name
+            card = Card.fromString(tokens[1]);
+        } catch (BadEncodingException e) {
+            this.out.printf(INVALID_CARD_MSG, tokens[1]);
+            return;
+        }
+        int num = 1;
+        if (tokens.length > 2) {
+            // At least two arguments
+            // Parse number of cards
+            num = parsePosInt(tokens[2], this.out);
+        }
+        if (num == INVALID_INT) {
+            return;
+        }
+        int numUnseen = this.session.shoe.getUnseen(card.getOrdinal(), PackedHand.fromList(this.session.hand));
+        if (num > numUnseen) {
+            this.out.printf("Error: only %d unseen cop%s of %s remain\n", numUnseen, numUnseen == 1 ? "y" : "ies", card);
+        } else {
+            this.session.shoe.remove(card.getOrdinal(), num);
+        }
+    }
+
+    public void outs() {
+        PackedHand hand = PackedHand.fromList(this.session.hand);
+        ShoeTracker shoe = this.session.shoe;
+        int numUnseen = shoe.getNumUnseen(hand);
+        Map<Card, Integer> ranking = getAnalysis().getDrawRanking();
+        int numOuts = 0;
+        int numPrinted = 0;
+        for (Map.Entry<Card, Integer> entry : ranking.entrySet()) {
+            if (entry.getValue() <= 0) {
+                // Ranked from most to least improving
+                break;
+            }
+            int ordinal = entry.getKey().getOrdinal();
+            numOuts += shoe.getUnseen(ordinal, hand);
+            numPrinted++;
+            this.out.printf("%d.\t%-20s%d\t%d unseen\t%.4f\n", numPrinted, entry.getKey(), entry.getValue(),
+                    shoe.getUnseen(ordinal, hand), shoe.getDrawProbability(ordinal, hand, numUnseen));
+        }
+        if (numPrinted == 0) {
+            this.out.println("none");
+        }
+        this.out.printf("\nChance of drawing an out:\t%.4f (%d of %d unseen cards)\n",
+                numUnseen == 0 ? 0 : numOuts / (double) numUnseen, numOuts, numUnseen);
+    }
+
+    public void plan(String input) {
+        String[] tokens = input.split(" ");
+        int depth = DEFAULT_PLAN_DEPTH;
+        if (tokens.length > 1) {
+            // At least one argument
+            // Parse number of turns
+            depth = parseInt(tokens[1], this.out);
+            if (depth == INVALID_INT) {
+                return;
+            }
+            if (depth < 0 || depth > MAX_PLAN_DEPTH) {
+                this.out.printf("Error: must be between 0 and %d\n", MAX_PLAN_DEPTH);
+                return;
+            }
+        }
+        PackedHand hand = PackedHand.fromList(this.session.hand);
+        int[] drawWeights = new int[Card.NUM_CARDS];
+        for (int ordinal = 0; ordinal < Card.NUM_CARDS; ordinal++) {
+            drawWeights[ordinal] = this.session.shoe.getUnseen(ordinal, hand);
+        }
+        Planner planner = new Planner(this.session.numBooks, this.session.numRuns, this.session.strategy,
+                drawWeights, Planner.DEFAULT_BEAM_WIDTH);
+        PlanResult result = planner.plan(hand, depth);
+        int i = 1;
+        for (Map.Entry<Card, Double> entry : result.getRanking().entrySet()) {
+            this.out.printf("%d.\t%-20s%.4f\n", i++, entry.getKey(), entry.getValue());
+        }
+        if (i == 1) {
+            this.out.println("none");
+            return;
+        }
+        this.out.printf("\nExpected cards missing after %d turn%s\n", depth, depth == 1 ? "" : "s");
+        this.out.printf("Nodes:\t%d (%d memo hits) in %.1f ms, %.0f nodes/s\n", result.getNumNodes(),
+                result.getNumMemoHits(), result.getElapsedNanos() / 1e6, result.getNodesPerSecond());
+    }
+
     public void createNew(String input) {
         String[] tokens = input.split(" ");
         int handSize = DEFAULT_HAND_SIZE;
         if (tokens.length > 1) {
             // At least one argument
             // Parse number of cards
-            handSize = parsePosInt(tokens[1]);
+            handSize = parsePosInt(tokens[1], this.out);
         }
         if (handSize != INVALID_INT) {
-            this.hand = Deck.shuffledHand(handSize, this.numDecks);
+            this.session.hand = Deck.shuffledHand(handSize, this.session.numDecks);
         }
     }
 
     public void buy(String input) {
         String[] tokens = input.split(" ");
         if (tokens.length == 1) {
-            System.out.println("Error: expecting at least one argument");
+            this.out.println("Error: expecting at least one argument");
         } else {
             // At least one argument
+            if (tokens[1].equals("all")) {
+                buyAll();
+                return;
+            }
             // Parse card name
             try {
                 Card card = Card.fromString(tokens[1]);
-                List<Card> handCopy = new ArrayList<>(this.hand);
-                Map<String, List<List<Card>>> basesMap = Algorithm.getOptimalBases(
-                        handCopy, this.numBooks, this.numRuns);
-                // Calculate how many cards are missing before adding card
-                int initMissingCards = Algorithm.numCardsMissing(
-                        basesMap, this.numBooks, this.numRuns);
-                handCopy.add(card);
-                basesMap = Algorithm.getOptimalBases(
-                        handCopy, this.numBooks, this.numRuns);
-                // Calculate how many cards are missing after adding card
-                int newMissingCards = Algorithm.numCardsMissing(
-                        basesMap, this.numBooks, this.numRuns);
+                HandEvaluator evaluator = getAnalysis().getEvaluator();
+                // Calculate how many cards are missing before and after adding card
+                int initMissingCards = evaluator.numCardsMissing();
+                int newMissingCards = evaluator.numCardsMissingWith(card);
                 if (newMissingCards < initMissingCards) {
                     // If the number of needed cards are lower, then buy
-                    System.out.println("yes");
+                    this.out.println("yes");
                 } else {
-                    System.out.println("no");
+                    this.out.println("no");
                 }
             } catch (BadEncodingException e) {
-                System.out.printf(INVALID_CARD_MSG, tokens[1]);
+                this.out.printf(INVALID_CARD_MSG, tokens[1]);
             }
         }
     }
 
+    public void buyAll() {
+        Map<Card, Integer> ranking = getAnalysis().getDrawRanking();
+        int numPrinted = 0;
+        for (Map.Entry<Card, Integer> entry : ranking.entrySet()) {
+            numPrinted++;
+            this.out.printf("%d.\t%-20s%d\n", numPrinted, entry.getKey(), entry.getValue());
+        }
+    }
+
     public void buildBases() {
-        Map<String, List<List<Card>>> basesMap = Algorithm.getOptimalBases(
-                this.hand, this.numBooks, this.numRuns);
+        Map<String, List<List<Card>>> basesMap = getAnalysis().getBases();
         for (Map.Entry<String, List<List<Card>>> entry : basesMap.entrySet()) {
             int numPrinted = 0;
             StringBuilder label = new StringBuilder(entry.getKey());
@@ -264,47 +514,192 @@ public class Command {
             for (List<Card> stack : entry.getValue()) {
                 // Print out bases
                 numPrinted++;
-                System.out.printf("%s %d:\t%s\n", label, numPrinted, stack);
+                this.out.printf("%s %d:\t%s\n", label, numPrinted, stack);
             }
         }
-        int numCardsMissing = Algorithm.numCardsMissing(
-                basesMap, this.numBooks, this.numRuns);
-        System.out.printf("\nNumber of cards missing: %d\n", numCardsMissing);
+        this.out.printf("\nNumber of cards missing: %d\n", getAnalysis().numCardsMissing());
     }
 
-    public void discard() {
-        Map<String, List<List<Card>>> basesMap = Algorithm.getOptimalBases(
-                this.hand, this.numBooks, this.numRuns);
-        List<Card> handCopy = new ArrayList<>(this.hand);
+    public void discard(String input) {
+        String[] tokens = input.split(" ");
+        String option = tokens.length > 1 ? tokens[1] : "";
+        switch (option) {
+            case "":
+                Card card = getAnalysis().getBestDiscard();
+                this.out.println(card == null ? "none" : card);
+                break;
+            case "all":
+                Map<Card, Integer> ranking = getAnalysis().getDiscardRanking();
+                int numPrinted = 0;
+                for (Map.Entry<Card, Integer> entry : ranking.entrySet()) {
+                    numPrinted++;
+                    this.out.printf("%d.\t%-20s%d\n", numPrinted, entry.getKey(), entry.getValue());
+                }
+                break;
+            case "score":
+                discardByScore();
+                break;
+            default:
+                this.out.println("Error: not a valid discard option");
+        }
+    }
+
+    public void discardByScore() {
+        Map<String, List<List<Card>>> basesMap = getAnalysis().getBases();
+        List<Card> handCopy = new ArrayList<>(this.session.hand);
         for (List<List<Card>> bases : basesMap.values()) {
             Algorithm.removeBases(handCopy, bases);
         }
         Card card = Card.getBestDiscard(handCopy);
         if (card == null) {
-            System.out.println("none");
+            this.out.println("none");
         } else {
-            System.out.println(card);
+            this.out.println(card);
         }
     }
 
+    public void simulate(String input) {
+        String[] tokens = input.split(" ");
+        int trials = DEFAULT_TRIALS;
+        int turns = DEFAULT_TURNS;
+        if (tokens.length > 1) {
+            // At least one argument
+            // Parse number of trials
+            trials = parsePosInt(tokens[1], this.out);
+        }
+        if (tokens.length > 2 && trials != INVALID_INT) {
+            // At least two arguments
+            // Parse number of turns
+            turns = parsePosInt(tokens[2], this.out);
+        }
+        if (trials == INVALID_INT || turns == INVALID_INT) {
+            return;
+        }
+        Simulator simulator = new Simulator(PackedHand.fromList(this.session.hand),
+                this.session.numBooks, this.session.numRuns, this.session.numDecks, this.session.strategy, turns);
+        SimulationResult result = simulator.run(trials, System.nanoTime());
+        this.out.printf("Mean turns:\t%.2f (of completed playouts)\n", result.getMeanTurns());
+        for (double fraction : new double[] {0.5, 0.9, 0.99}) {
+            int percentile = result.getPercentile(fraction);
+            this.out.printf("%d%% within:\t%s turns\n", Math.round(fraction * 100),
+                    percentile > turns ? ">" + turns : String.valueOf(percentile));
+        }
+        this.out.println("\nTurns\tChance of completing within");
+        for (int i = 1; i <= turns; i++) {
+            this.out.printf("%d\t%.4f\n", i, result.getProbWithin(i));
+        }
+        this.out.printf("\nThroughput:\t%.0f playouts/s\n", result.getPlayoutsPerSecond());
+    }
+
+    public void selfPlay(String input) {
+        String[] tokens = input.split(" ");
+        int numGames = DEFAULT_GAMES;
+        int numPlayers = DEFAULT_PLAYERS;
+        if (tokens.length > 1) {
+            // At least one argument
+            // Parse number of games
+            numGames = parsePosInt(tokens[1], this.out);
+        }
+        if (tokens.length > 2 && numGames != INVALID_INT) {
+            // At least two arguments
+            // Parse number of players
+            numPlayers = parsePosInt(tokens[2], this.out);
+        }
+        if (numGames == INVALID_INT || numPlayers == INVALID_INT) {
+            return;
+        }
+        List<BotFactory> seats = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int seat = 0; seat < numPlayers; seat++) {
+            Strategy strategy = seat % 2 == 0 ? Strategy.EXACT : Strategy.GREEDY;
+            seats.add(random -> new AlgorithmBot(strategy));
+            names.add(new AlgorithmBot(strategy).toString());
+        }
+        SelfPlayResult result;
+        try {
+            result = new SelfPlay(seats, this.session.numDecks).run(numGames, System.nanoTime());
+        } catch (IllegalArgumentException e) {
+            this.out.println("Error: " + e.getMessage());
+            return;
+        }
+        this.out.println("Seat\tBot\t\t\tMean score\tWin rate");
+        for (int seat = 0; seat < numPlayers; seat++) {
+            this.out.printf("%d\t%-24s%.1f\t\t%.3f\n", seat + 1, names.get(seat),
+                    result.getMeanScore(seat), result.getWinRate(seat));
+        }
+        this.out.printf("\nThroughput:\t%.1f games/s\n", result.getGamesPerSecond());
+    }
+
     public void sortHand(String input) {
         String[] tokens = input.split(" ");
         if (tokens.length == 1) {
-            System.out.println("Error: expecting at least one argument");
+            this.out.println("Error: expecting at least one argument");
+        } else {
+            // At least one argument
+            // Parse option
+            int num = parseInt(tokens[1], this.out);
+            if (num != INVALID_INT) {
+                switch(num) {
+                    case 0:
+                        Card.sortByNum(this.session.hand);
+                        break;
+                    case 1:
+                        Card.sortBySuit(this.session.hand);
+                        break;
+                    default:
+                        this.out.println("Error: not a valid sort option");
+                }
+            }
+        }
+    }
+
+    public void stats(String input) {
+        String[] tokens = input.split(" ");
+        String option = tokens.length > 1 ? tokens[1] : "";
+        switch (option) {
+            case "":
+                if (!Metrics.ENABLED) {
+                    this.out.println("Metrics are disabled (rummy.metrics=false)");
+                    return;
+                }
+                for (Map.Entry<String, LongAdder> entry : Metrics.getCounters().entrySet()) {
+                    this.out.printf("%-20s%d\n", entry.getKey(), entry.getValue().sum());
+                }
+                this.out.println("\nHistogram\t\tCount\tMean\t\tp50\t\tp99");
+                for (Histogram histogram : Metrics.getHistograms()) {
+                    this.out.printf("%-20s\t%d\t%-12.1f\t%-12d\t%d\n", histogram.getName(), histogram.getCount(),
+                            histogram.getMean(), histogram.getPercentile(0.5), histogram.getPercentile(0.99));
+                }
+                break;
+            case "json":
+                this.out.println(Metrics.toJson());
+                break;
+            case "reset":
+                Metrics.reset();
+                break;
+            default:
+                this.out.println("Error: not a valid stats option");
+        }
+    }
+
+    public void setStrategy(String input) {
+        String[] tokens = input.split(" ");
+        if (tokens.length == 1) {
+            this.out.println("Error: expecting at least one argument");
         } else {
             // At least one argument
             // Parse option
-            int num = parseInt(tokens[1]);
+            int num = parseInt(tokens[1], this.out);
             if (num != INVALID_INT) {
                 switch(num) {
                     case 0:
-                        Card.sortByNum(this.hand);
+                        this.session.strategy = Strategy.GREEDY;
                         break;
                     case 1:
-                        Card.sortBySuit(this.hand);
+                        this.session.strategy = Strategy.EXACT;
                         break;
                     default:
-                        System.out.println("Error: not a valid sort option");
+                        this.out.println("Error: not a valid strategy option");
                 }
             }
         }
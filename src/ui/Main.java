@@ -1,12 +1,23 @@
 package ui;
 
+import server.AdvisoryServer;
+
 import java.io.*;
+import java.util.Arrays;
 
 /**
  * The main class which handles interaction with the user.
  */
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchMode.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            AdvisoryServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         try {
             BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
             String line;
@@ -0,0 +1,113 @@
+package ui;
+
+import algorithms.Strategy;
+import hand.Card;
+import hand.ShoeTracker;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The state of one player's conversation with the command interpreter: their hand, the
+ * contract, the number of decks, the strategy and the cards seen leaving the shoe, along with
+ * the stream their output is printed to.
+ *
+ * A session is not thread-safe. Each session should only be used by one thread at a time,
+ * which SessionRegistry guarantees by locking sessions individually.
+ */
+public class Session {
+    private final PrintStream out;
+    List<Card> hand;
+    int numDecks;
+    int numBooks;
+    int numRuns;
+    Strategy strategy;
+    ShoeTracker shoe;
+
+    /**
+     * Instantiates a new session with an empty hand and the default settings, printing to
+     * the given stream.
+     *
+     * @param out the stream the output of commands is printed to
+     */
+    public Session(PrintStream out) {
+        this.out = out;
+        reset();
+    }
+
+    /**
+     * Empties the hand, and restores the default settings.
+     */
+    public void reset() {
+        this.hand = new ArrayList<>();
+        this.numDecks = Command.DEFAULT_NUM_DECKS;
+        this.numBooks = 0;
+        this.numRuns = 0;
+        this.strategy = Command.DEFAULT_STRATEGY;
+        this.shoe = new ShoeTracker(this.numDecks);
+    }
+
+    /**
+     * Returns the stream the output of commands is printed to.
+     *
+     * @return the output stream
+     */
+    public PrintStream getOut() {
+        return this.out;
+    }
+
+    /**
+     * Returns a copy of the cards in the hand.
+     *
+     * @return the list of cards
+     */
+    public List<Card> getHand() {
+        return new ArrayList<>(this.hand);
+    }
+
+    /**
+     * Returns the number of decks cards are drawn from.
+     *
+     * @return the number of decks
+     */
+    public int getNumDecks() {
+        return this.numDecks;
+    }
+
+    /**
+     * Returns the number of books in the contract.
+     *
+     * @return the number of books
+     */
+    public int getNumBooks() {
+        return this.numBooks;
+    }
+
+    /**
+     * Returns the number of runs in the contract.
+     *
+     * @return the number of runs
+     */
+    public int getNumRuns() {
+        return this.numRuns;
+    }
+
+    /**
+     * Returns the tracker of the cards seen leaving the shoe.
+     *
+     * @return the shoe tracker
+     */
+    public ShoeTracker getShoe() {
+        return this.shoe;
+    }
+
+    /**
+     * Returns the strategy used to determine the bases.
+     *
+     * @return the strategy
+     */
+    public Strategy getStrategy() {
+        return this.strategy;
+    }
+}
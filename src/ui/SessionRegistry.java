@@ -0,0 +1,191 @@
+package ui;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hosts many independent command sessions in one JVM, each identified by a string id and
+ * printing to its own output stream.
+ *
+ * There is no global lock: sessions are kept in a ConcurrentHashMap, and each session has its
+ * own lock, so commands of different sessions run in parallel while the commands of one
+ * session run one at a time, in the order they acquire its lock. The EvaluationCache which
+ * sessions share is lock-free, so cache misses in different sessions do not wait for each
+ * other either. Sessions which have not run a command for a while can be evicted, either by
+ * calling evictIdle or periodically by the registry itself.
+ */
+public class SessionRegistry implements AutoCloseable {
+    private final Map<String, Entry> sessions;
+    private final AtomicLong nextId;
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Instantiates a new registry which only evicts sessions when evictIdle is called.
+     */
+    public SessionRegistry() {
+        this.sessions = new ConcurrentHashMap<>();
+        this.nextId = new AtomicLong();
+        this.evictor = null;
+    }
+
+    /**
+     * Instantiates a new registry which evicts sessions idle for longer than the given time,
+     * checking periodically on a background thread until the registry is closed.
+     *
+     * @param idleTimeout the time a session may be idle
+     * @param unit the unit of the timeout
+     */
+    public SessionRegistry(long idleTimeout, TimeUnit unit) {
+        this.sessions = new ConcurrentHashMap<>();
+        this.nextId = new AtomicLong();
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long idleNanos = unit.toNanos(idleTimeout);
+        long period = Math.max(1, idleNanos / 4);
+        this.evictor.scheduleAtFixedRate(() -> evictIdle(idleNanos), period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Opens a new session printing to the given stream. Its 'exit' command closes the session
+     * instead of terminating the program.
+     *
+     * @param out the stream the output of the session's commands is printed to
+     * @return the id of the session
+     */
+    public String open(PrintStream out) {
+        String id = Long.toString(this.nextId.incrementAndGet(), 36);
+        Entry entry = new Entry();
+        entry.command = new Command(new Session(out), () -> {
+            entry.closed = true;
+            this.sessions.remove(id, entry);
+        });
+        this.sessions.put(id, entry);
+        return id;
+    }
+
+    /**
+     * Runs a command line in the given session, waiting for any command of the same session
+     * which is already running.
+     *
+     * @param id the id of the session
+     * @param line the command line
+     * @return false if there is no open session with the id, and true otherwise
+     */
+    public boolean execute(String id, String line) {
+        Entry entry = this.sessions.get(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.lock.lock();
+        try {
+            if (entry.closed) {
+                // Closed or evicted while waiting for the lock
+                return false;
+            }
+            entry.command.readCommand(line);
+            entry.lastAccess = System.nanoTime();
+            return true;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the state of the given session. The session must not be changed while it is
+     * in use by the registry.
+     *
+     * @param id the id of the session
+     * @return the session, or null if there is no open session with the id
+     */
+    public Session get(String id) {
+        Entry entry = this.sessions.get(id);
+        return entry == null ? null : entry.command.getSession();
+    }
+
+    /**
+     * Closes the given session, waiting for any command of the session which is running.
+     *
+     * @param id the id of the session
+     * @return false if there is no open session with the id, and true otherwise
+     */
+    public boolean close(String id) {
+        Entry entry = this.sessions.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.lock.lock();
+        try {
+            entry.closed = true;
+        } finally {
+            entry.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Closes every session which has not run a command for longer than the given time.
+     * Sessions running a command are never evicted.
+     *
+     * @param idleNanos the time in nanoseconds a session may be idle
+     * @return the number of sessions evicted
+     */
+    public int evictIdle(long idleNanos) {
+        long now = System.nanoTime();
+        int numEvicted = 0;
+        for (Map.Entry<String, Entry> mapping : this.sessions.entrySet()) {
+            Entry entry = mapping.getValue();
+            if (now - entry.lastAccess <= idleNanos || !entry.lock.tryLock()) {
+                continue;
+            }
+            try {
+                // Check again, as a command may have run since
+                if (!entry.closed && now - entry.lastAccess > idleNanos
+                        && this.sessions.remove(mapping.getKey(), entry)) {
+                    entry.closed = true;
+                    numEvicted++;
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        return numEvicted;
+    }
+
+    /**
+     * Returns the number of open sessions.
+     *
+     * @return the number of sessions
+     */
+    public int size() {
+        return this.sessions.size();
+    }
+
+    /**
+     * Stops evicting idle sessions in the background. Open sessions remain usable.
+     */
+    @Override
+    public void close() {
+        if (this.evictor != null) {
+            this.evictor.shutdownNow();
+        }
+    }
+
+    /**
+     * A session with the lock serializing its commands.
+     */
+    private static class Entry {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Command command;
+        private volatile long lastAccess = System.nanoTime();
+        private volatile boolean closed;
+    }
+}
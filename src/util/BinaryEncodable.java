@@ -0,0 +1,18 @@
+package util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A type that can be encoded to a fixed-width binary representation, useful for storing
+ * large numbers of objects in files which are read back in bulk.
+ */
+public interface BinaryEncodable {
+
+    /**
+     * Writes the binary representation of the current state of this object at the position
+     * of the given buffer, and advances the position past it.
+     *
+     * @param buffer the buffer to write to
+     */
+    void encode(ByteBuffer buffer);
+}
@@ -0,0 +1,169 @@
+package util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of non-negative values which does not lock when recording.
+ *
+ * A logarithmic histogram counts values in power-of-two buckets: bucket 0 holds 0, and
+ * bucket i holds values from 2^(i-1) to 2^i - 1, so any long fits and percentiles are
+ * accurate to within a factor of two. A linear histogram has one bucket per value from 0,
+ * with larger values counted in the last bucket.
+ *
+ * Like the counters in Metrics, each bucket, the count and the sum are LongAdders, so
+ * threads recording at the same time add to their own cells instead of contending for the
+ * same cache lines. Reading the histogram sums the cells, so it is slower than recording.
+ */
+public class Histogram {
+    private final static int NUM_LOG_BUCKETS = 65;
+
+    private final String name;
+    private final boolean linear;
+    private final LongAdder[] buckets;
+    // Count and sum of the recorded values
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    private Histogram(String name, boolean linear, int numBuckets) {
+        this.name = name;
+        this.linear = linear;
+        this.buckets = new LongAdder[numBuckets];
+        for (int i = 0; i < numBuckets; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Instantiates a new histogram with power-of-two buckets.
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public static Histogram logarithmic(String name) {
+        return new Histogram(name, false, NUM_LOG_BUCKETS);
+    }
+
+    /**
+     * Instantiates a new histogram with one bucket per value up to the given maximum.
+     *
+     * @param name the name of the histogram
+     * @param maxValue the largest value with its own bucket
+     * @return the histogram
+     */
+    public static Histogram linear(String name, int maxValue) {
+        return new Histogram(name, true, maxValue + 1);
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        int bucket = this.linear
+                ? (int) Math.min(value, this.buckets.length - 1)
+                : Long.SIZE - Long.numberOfLeadingZeros(value);
+        this.buckets[bucket].increment();
+        this.count.increment();
+        this.sum.add(value);
+    }
+
+    /**
+     * Returns the name of the histogram.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Returns the mean of the values recorded, or 0 if there are none.
+     *
+     * @return the mean
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : this.sum.sum() / (double) count;
+    }
+
+    /**
+     * Returns the number of buckets.
+     *
+     * @return the number of buckets
+     */
+    public int getNumBuckets() {
+        return this.buckets.length;
+    }
+
+    /**
+     * Returns the number of values recorded in the given bucket.
+     *
+     * @param bucket the bucket
+     * @return the count of the bucket
+     */
+    public long getBucketCount(int bucket) {
+        return this.buckets[bucket].sum();
+    }
+
+    /**
+     * Returns the largest value the given bucket holds (for the last bucket of a linear
+     * histogram, the smallest).
+     *
+     * @param bucket the bucket
+     * @return the upper bound of the bucket
+     */
+    public long getBucketBound(int bucket) {
+        if (this.linear || bucket == 0) {
+            return bucket;
+        }
+        return bucket == Long.SIZE ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the values recorded: the bound of the
+     * bucket it falls in. Returns 0 if there are no values.
+     *
+     * @param fraction the fraction of values at or below the percentile
+     * @return the upper bound of the percentile
+     */
+    public long getPercentile(double fraction) {
+        // Each bucket is read once, so the percentile is consistent with the counts read
+        long[] counts = new long[this.buckets.length];
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.buckets[i].sum();
+            count += counts[i];
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return getBucketBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        for (LongAdder bucket : this.buckets) {
+            bucket.reset();
+        }
+        this.count.reset();
+        this.sum.reset();
+    }
+}
@@ -0,0 +1,160 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and histograms describing how the algorithms are used: how long
+ * commands take, how often bases are determined and for what hands, which ordering of the
+ * greedy algorithm wins, and how jokers are distributed.
+ *
+ * Recording is enabled unless the rummy.metrics system property is false. Every call site
+ * checks ENABLED first; as it is a static final constant, the JIT removes the recording
+ * entirely when it is false. Recording does not allocate, and takes a few atomic increments.
+ */
+public class Metrics {
+    public final static boolean ENABLED = !"false".equals(System.getProperty("rummy.metrics"));
+    public final static int MAX_HAND_SIZE = 63;
+
+    private final static Map<String, LongAdder> COUNTERS = new LinkedHashMap<>();
+    private final static List<Histogram> HISTOGRAMS = new ArrayList<>();
+
+    public final static Histogram BUILD_NANOS = histogram(Histogram.logarithmic("build_nanos"));
+    public final static Histogram BUY_NANOS = histogram(Histogram.logarithmic("buy_nanos"));
+    public final static Histogram DISCARD_NANOS = histogram(Histogram.logarithmic("discard_nanos"));
+    public final static Histogram HAND_SIZES = histogram(Histogram.linear("hand_size", MAX_HAND_SIZE));
+    public final static LongAdder GREEDY_BASES = counter("greedy_bases");
+    public final static LongAdder EXACT_BASES = counter("exact_bases");
+    public final static LongAdder BOOKS_FIRST_WINS = counter("books_first_wins");
+    public final static LongAdder RUNS_FIRST_WINS = counter("runs_first_wins");
+    public final static LongAdder ORDERING_TIES = counter("ordering_ties");
+    public final static LongAdder JOKER_HANDS = counter("joker_hands");
+    public final static LongAdder JOKERS_PLACED = counter("jokers_placed");
+    public final static LongAdder JOKERS_SPARE = counter("jokers_spare");
+
+    private Metrics() {
+    }
+
+    private static LongAdder counter(String name) {
+        LongAdder counter = new LongAdder();
+        COUNTERS.put(name, counter);
+        return counter;
+    }
+
+    private static Histogram histogram(Histogram histogram) {
+        HISTOGRAMS.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Records a call determining the bases of a hand.
+     *
+     * @param handSize the number of cards in the hand
+     * @param exact whether the exact strategy was used
+     */
+    public static void recordBases(int handSize, boolean exact) {
+        (exact ? EXACT_BASES : GREEDY_BASES).increment();
+        HAND_SIZES.record(handSize);
+    }
+
+    /**
+     * Records the outcome of comparing the greedy orderings (books first and runs first).
+     *
+     * @param booksFirstMissing the number of cards missing when forming books first
+     * @param runsFirstMissing the number of cards missing when forming runs first
+     */
+    public static void recordOrdering(int booksFirstMissing, int runsFirstMissing) {
+        if (booksFirstMissing < runsFirstMissing) {
+            BOOKS_FIRST_WINS.increment();
+        } else if (runsFirstMissing < booksFirstMissing) {
+            RUNS_FIRST_WINS.increment();
+        } else {
+            ORDERING_TIES.increment();
+        }
+    }
+
+    /**
+     * Records the distribution of a hand's jokers to its bases.
+     *
+     * @param numJokers the number of jokers in the hand
+     * @param numSpare the number of jokers not added to any basis
+     */
+    public static void recordJokers(int numJokers, int numSpare) {
+        if (numJokers > 0) {
+            JOKER_HANDS.increment();
+            JOKERS_PLACED.add(numJokers - numSpare);
+            JOKERS_SPARE.add(numSpare);
+        }
+    }
+
+    /**
+     * Returns the counters by name, in a fixed order.
+     *
+     * @return the counters
+     */
+    public static Map<String, LongAdder> getCounters() {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+
+    /**
+     * Returns the histograms, in a fixed order.
+     *
+     * @return the histograms
+     */
+    public static List<Histogram> getHistograms() {
+        return Collections.unmodifiableList(HISTOGRAMS);
+    }
+
+    /**
+     * Resets every counter and histogram to zero.
+     */
+    public static void reset() {
+        for (LongAdder counter : COUNTERS.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Returns every counter and histogram as a single line of JSON. Counters map names to
+     * values; histograms map names to their count, mean and non-empty buckets, each bucket
+     * given as [upper bound, count].
+     *
+     * @return the JSON dump
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{\"enabled\":").append(ENABLED).append(",\"counters\":{");
+        String separator = "";
+        for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue().sum());
+            separator = ",";
+        }
+        json.append("},\"histograms\":{");
+        separator = "";
+        for (Histogram histogram : HISTOGRAMS) {
+            json.append(separator).append('"').append(histogram.getName()).append("\":{\"count\":")
+                    .append(histogram.getCount())
+                    .append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", histogram.getMean()))
+                    .append(",\"buckets\":[");
+            String bucketSeparator = "";
+            for (int i = 0; i < histogram.getNumBuckets(); i++) {
+                long count = histogram.getBucketCount(i);
+                if (count > 0) {
+                    json.append(bucketSeparator).append('[').append(histogram.getBucketBound(i))
+                            .append(',').append(count).append(']');
+                    bucketSeparator = ",";
+                }
+            }
+            json.append("]}");
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+}